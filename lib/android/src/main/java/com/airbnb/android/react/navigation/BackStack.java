@@ -1,22 +1,47 @@
 package com.airbnb.android.react.navigation;
 
+import android.os.Bundle;
 import android.support.annotation.Nullable;
 import android.support.v4.app.Fragment;
 
 import com.facebook.react.bridge.Promise;
 
-import java.util.Stack;
+import java.util.Arrays;
 
+/**
+ * A stack of fragments presented together. Entries are kept in parallel arrays that grow as
+ * needed; this is only ever touched from the main thread so nothing here is synchronized.
+ *
+ * The bottom entries of a stack may be {@link ScreenDescriptor}s that are only turned into
+ * fragments once they're about to be shown (see {@link #materializeTop(Fragment)}).
+ */
 class BackStack {
 
-  private final Stack<Fragment> fragments = new Stack<>();
+  private static final int INITIAL_CAPACITY = 4;
+
+  /** Source of entry ids. Main thread only, like the rest of this class. */
+  private static long nextEntryId = 1;
+
+  private Fragment[] fragments = new Fragment[INITIAL_CAPACITY];
+  private long[] animationDurations = new long[INITIAL_CAPACITY];
+  private long[] entryIds = new long[INITIAL_CAPACITY];
+  private String[] moduleNames = new String[INITIAL_CAPACITY];
+  private ScreenDescriptor[] descriptors = new ScreenDescriptor[INITIAL_CAPACITY];
+  private int size;
   private final String tag;
   private final ScreenCoordinator.PresentAnimation animation;
+  private final long animationDuration;
   private final Promise promise;
 
   BackStack(String tag, ScreenCoordinator.PresentAnimation animation, Promise promise) {
+    this(tag, animation, PresentAnimationEngine.DEFAULT_DURATION, promise);
+  }
+
+  BackStack(String tag, ScreenCoordinator.PresentAnimation animation, long animationDuration,
+      Promise promise) {
     this.tag = tag;
     this.animation = animation;
+    this.animationDuration = animationDuration;
     this.promise = promise;
   }
 
@@ -28,39 +53,158 @@ class BackStack {
     return animation;
   }
 
+  /**
+   * Duration of the present (and dismiss) animation of this stack.
+   */
+  long getAnimationDuration() {
+    return animationDuration;
+  }
+
   Promise getPromise() {
     return promise;
   }
 
   @Nullable
   Fragment peekFragment() {
-    if (fragments.isEmpty()) {
+    if (size == 0) {
       return null;
     }
-    return fragments.peek();
+    return fragments[size - 1];
   }
 
   void pushFragment(Fragment fragment) {
-    fragments.push(fragment);
+    pushFragment(fragment, PresentAnimationEngine.DEFAULT_DURATION);
+  }
+
+  void pushFragment(Fragment fragment, long animationDuration) {
+    ensureCapacity();
+    fragments[size] = fragment;
+    animationDurations[size] = animationDuration;
+    entryIds[size] = nextEntryId++;
+    moduleNames[size] = moduleNameOf(fragment);
+    size++;
+  }
+
+  /**
+   * Pushes a screen without instantiating its fragment. Only allowed while the stack holds nothing
+   * but other descriptors.
+   */
+  void pushDescriptor(ScreenDescriptor descriptor, long animationDuration) {
+    if (peekFragment() != null) {
+      throw new IllegalStateException("Descriptors can only be pushed below fragments.");
+    }
+    ensureCapacity();
+    descriptors[size] = descriptor;
+    animationDurations[size] = animationDuration;
+    entryIds[size] = nextEntryId++;
+    moduleNames[size] = descriptor.getModuleName();
+    size++;
+  }
+
+  /**
+   * Returns the descriptor of the top entry if its fragment hasn't been created yet.
+   */
+  @Nullable
+  ScreenDescriptor peekDescriptor() {
+    if (size == 0) {
+      return null;
+    }
+    return descriptors[size - 1];
+  }
+
+  /**
+   * Replaces the descriptor on top with the fragment created for it, keeping the entry's id.
+   */
+  void materializeTop(Fragment fragment) {
+    if (peekDescriptor() == null) {
+      throw new IllegalStateException("Top entry already has a fragment.");
+    }
+    descriptors[size - 1] = null;
+    fragments[size - 1] = fragment;
+  }
+
+  private void ensureCapacity() {
+    if (size == fragments.length) {
+      int capacity = size * 2;
+      fragments = Arrays.copyOf(fragments, capacity);
+      animationDurations = Arrays.copyOf(animationDurations, capacity);
+      entryIds = Arrays.copyOf(entryIds, capacity);
+      moduleNames = Arrays.copyOf(moduleNames, capacity);
+      descriptors = Arrays.copyOf(descriptors, capacity);
+    }
+  }
+
+  /**
+   * Duration of the push (and pop) animation of the top fragment.
+   */
+  long peekAnimationDuration() {
+    if (size == 0) {
+      return PresentAnimationEngine.DEFAULT_DURATION;
+    }
+    return animationDurations[size - 1];
   }
 
   Fragment popFragment() {
-    if (fragments.isEmpty()) {
+    if (size == 0) {
       throw new IllegalStateException("Cannot pop empty stack.");
     }
-    return fragments.remove(fragments.size() - 1);
+    size--;
+    Fragment fragment = fragments[size];
+    fragments[size] = null;
+    moduleNames[size] = null;
+    descriptors[size] = null;
+    return fragment;
   }
 
   int getSize() {
-    return fragments.size();
+    return size;
+  }
+
+  /**
+   * Id of the entry at {@code index} (0 is the bottom of the stack). Ids are unique for the
+   * lifetime of the process and don't change while the entry is on the stack.
+   */
+  long getEntryId(int index) {
+    checkIndex(index);
+    return entryIds[index];
+  }
+
+  /**
+   * Module name of the entry at {@code index}, or the class name for fragments that aren't React
+   * screens.
+   */
+  String getModuleName(int index) {
+    checkIndex(index);
+    return moduleNames[index];
+  }
+
+  private void checkIndex(int index) {
+    if (index < 0 || index >= size) {
+      throw new IndexOutOfBoundsException("Index " + index + " out of bounds for size " + size);
+    }
+  }
+
+  private static String moduleNameOf(Fragment fragment) {
+    Bundle args = fragment.getArguments();
+    String moduleName = fragment instanceof ReactNativeFragment && args != null
+        ? args.getString(ReactNativeIntents.EXTRA_MODULE_NAME)
+        : null;
+    return moduleName != null ? moduleName : fragment.getClass().getName();
   }
 
   @Override
   public String toString() {
-    return "BackStack{" + ", tag='" + tag +
-            ", size=" + fragments.size() +
-            ", animation=" + animation +
-            ", promise?=" + (promise != null) +
-            '}';
+    StringBuilder sb = new StringBuilder("BackStack{tag='").append(tag).append('\'')
+        .append(", size=").append(size)
+        .append(", animation=").append(animation)
+        .append(", promise?=").append(promise != null)
+        .append(", entries=[");
+    for (int i = 0; i < size; i++) {
+      if (i > 0) {
+        sb.append(", ");
+      }
+      sb.append(entryIds[i]).append(':').append(moduleNames[i]);
+    }
+    return sb.append("]}").toString();
   }
 }
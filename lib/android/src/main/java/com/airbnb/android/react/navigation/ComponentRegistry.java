@@ -0,0 +1,146 @@
+package com.airbnb.android.react.navigation;
+
+import android.os.SystemClock;
+import android.support.annotation.Nullable;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Registered {@link ReactInterface}s by instance id, along with the state that belongs to each
+ * instance. A {@link Record} is created when the component registers and dropped when it
+ * unregisters, so nothing keyed by instance id outlives its screen.
+ *
+ * Components are registered and unregistered on the UI thread, but looked up from the native
+ * modules thread as well, so reads go through a {@link ConcurrentHashMap} and never lock.
+ * Records whose component got garbage collected without unregistering are removed when they show
+ * up in the {@link ReferenceQueue}, on the next write.
+ *
+ * A component registering again (e.g. when its view is recreated) keeps its record. Dismiss
+ * behavior set for an id that isn't registered yet is held until it is, for at most
+ * {@link #MAX_PENDING} ids; values for ids that never register (or already unregistered) are
+ * dropped oldest first.
+ */
+final class ComponentRegistry {
+
+  private final ConcurrentMap<String, Record> records = new ConcurrentHashMap<>();
+
+  static final int MAX_PENDING = 8;
+
+  private final Map<String, Boolean> pendingDismissClose = Collections.synchronizedMap(
+      new LinkedHashMap<String, Boolean>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+          return size() > MAX_PENDING;
+        }
+      });
+
+  private final ReferenceQueue<ReactInterface> queue = new ReferenceQueue<>();
+
+  Record register(String instanceId, ReactInterface component, ScreenConfig config) {
+    expungeStaleEntries();
+    Record existing = records.get(instanceId);
+    if (existing != null && existing.get() == component) {
+      return existing;
+    }
+    Record record = new Record(instanceId, component, config, queue);
+    records.put(instanceId, record);
+    Boolean dismissClose = pendingDismissClose.remove(instanceId);
+    if (dismissClose != null) {
+      record.dismissClose = dismissClose;
+    }
+    return record;
+  }
+
+  @Nullable
+  Record unregister(String instanceId) {
+    expungeStaleEntries();
+    pendingDismissClose.remove(instanceId);
+    return records.remove(instanceId);
+  }
+
+  void setDismissClose(String instanceId, boolean dismissClose) {
+    Record record = records.get(instanceId);
+    if (record != null) {
+      record.dismissClose = dismissClose;
+      return;
+    }
+    pendingDismissClose.put(instanceId, dismissClose);
+    // The component may have registered in the meantime, without seeing the pending value.
+    record = records.get(instanceId);
+    if (record != null && pendingDismissClose.remove(instanceId) != null) {
+      record.dismissClose = dismissClose;
+    }
+  }
+
+  /**
+   * Returns the component for {@code instanceId}, or {@code null} if it was never registered,
+   * has been unregistered or has been garbage collected.
+   */
+  @Nullable
+  ReactInterface get(String instanceId) {
+    Record record = records.get(instanceId);
+    return record == null ? null : record.get();
+  }
+
+  @Nullable
+  Record getRecord(String instanceId) {
+    return records.get(instanceId);
+  }
+
+  int size() {
+    return records.size();
+  }
+
+  private void expungeStaleEntries() {
+    Record record;
+    while ((record = (Record) queue.poll()) != null) {
+      // Only remove the entry if it hasn't been registered again in the meantime.
+      records.remove(record.instanceId, record);
+    }
+  }
+
+  /**
+   * Per instance state. Dismiss behavior may be set from any thread, metrics are only updated on
+   * the UI thread.
+   */
+  static final class Record extends WeakReference<ReactInterface> {
+    final String instanceId;
+    final ScreenConfig config;
+    final long registeredAtMs = SystemClock.uptimeMillis();
+    volatile boolean dismissClose;
+    volatile int transitionCount;
+    volatile int jankFrameCount;
+    volatile long enterDelayMs = -1;
+    volatile long firstRenderMs = -1;
+
+    Record(String instanceId, ReactInterface component, ScreenConfig config,
+        ReferenceQueue<ReactInterface> queue) {
+      super(component, queue);
+      this.instanceId = instanceId;
+      this.config = config;
+    }
+
+    void onTransitionFinished(int jankCount) {
+      transitionCount++;
+      jankFrameCount += jankCount;
+    }
+
+    @Override
+    public String toString() {
+      return "Record{" +
+          "instanceId='" + instanceId + '\'' +
+          ", aliveMs=" + (SystemClock.uptimeMillis() - registeredAtMs) +
+          ", transitions=" + transitionCount +
+          ", jankFrames=" + jankFrameCount +
+          ", enterDelayMs=" + enterDelayMs +
+          ", firstRenderMs=" + firstRenderMs +
+          '}';
+    }
+  }
+}
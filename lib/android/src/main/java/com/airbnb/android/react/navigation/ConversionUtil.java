@@ -1,10 +1,12 @@
 package com.airbnb.android.react.navigation;
 
 import android.os.Bundle;
+import android.support.annotation.Nullable;
 import android.util.Log;
 import com.facebook.react.bridge.ReadableArray;
 import com.facebook.react.bridge.ReadableMap;
 import com.facebook.react.bridge.ReadableMapKeySetIterator;
+import com.facebook.react.bridge.ReadableNativeMap;
 import com.facebook.react.bridge.ReadableType;
 import com.facebook.react.bridge.WritableArray;
 import com.facebook.react.bridge.WritableMap;
@@ -188,6 +190,24 @@ import java.util.Map;
     return result;
   }
 
+  /**
+   * Copies {@code map} into a new {@link WritableNativeMap}. Maps that came from the bridge are
+   * copied natively, without walking them in Java.
+   */
+  static WritableNativeMap toWritableNativeMap(@Nullable ReadableMap map) {
+    WritableNativeMap result = new WritableNativeMap();
+    mergeNative(result, map);
+    return result;
+  }
+
+  static void mergeNative(WritableNativeMap target, @Nullable ReadableMap map) {
+    if (map instanceof ReadableNativeMap) {
+      target.merge(map);
+    } else if (map != null) {
+      merge(target, map);
+    }
+  }
+
   static Map<String, String> toStringMap(ReadableMap readableMap) {
     ReadableMapKeySetIterator iterator = readableMap.keySetIterator();
     Map<String, String> result = new HashMap<>();
@@ -203,30 +203,34 @@ public class DefaultNavigationImplementation implements NavigationImplementation
       ReadableMap next,
       boolean firstCall
   ) {
-    Log.d(TAG, "reconcileNavigationProperties");
+    NavigationTrace.event(TAG, "reconcileNavigationProperties");
+    NavigationTrace.beginSection("DefaultNavigationImplementation.reconcile");
+    try {
+      Integer foregroundColor = defaults.foregroundColor;
 
-    Integer foregroundColor = defaults.foregroundColor;
-
-    if (next.hasKey("foregroundColor")) {
-      foregroundColor = next.getInt("foregroundColor");
-    }
+      if (next.hasKey("foregroundColor")) {
+        foregroundColor = next.getInt("foregroundColor");
+      }
 
-    if (firstCall || numberHasChanged("screenColor", prev, next)) {
-      if (next.hasKey("screenColor")) {
-        // this is the screen background color
-        Integer screenColor = next.getInt("screenColor");
-        component.getReactRootView().setBackgroundColor(screenColor);
-      } else {
-        component.getReactRootView().setBackgroundColor(defaults.screenColor);
+      if (firstCall || numberHasChanged("screenColor", prev, next)) {
+        if (next.hasKey("screenColor")) {
+          // this is the screen background color
+          Integer screenColor = next.getInt("screenColor");
+          component.getReactRootView().setBackgroundColor(screenColor);
+        } else {
+          component.getReactRootView().setBackgroundColor(defaults.screenColor);
+        }
       }
-    }
 
-    reconcileStatusBarStyle(
-        component.getActivity(),
-        prev,
-        next,
-        firstCall
-    );
+      reconcileStatusBarStyle(
+          component.getActivity(),
+          prev,
+          next,
+          firstCall
+      );
+    } finally {
+      NavigationTrace.endSection();
+    }
   }
 
   public void makeTabItem(
@@ -237,7 +241,7 @@ public class DefaultNavigationImplementation implements NavigationImplementation
       ReadableMap config
   ) {
 
-    Log.d(TAG, "makeTabItem");
+    NavigationTrace.event(TAG, "makeTabItem");
 
     MenuItem item = menu.add(
         Menu.NONE,
@@ -0,0 +1,92 @@
+package com.airbnb.android.react.navigation;
+
+import android.content.ComponentCallbacks2;
+import android.content.res.Configuration;
+import android.os.Looper;
+import android.os.MessageQueue;
+
+import com.facebook.react.ReactRootView;
+import com.facebook.react.bridge.UiThreadUtil;
+
+import java.util.ArrayDeque;
+
+/**
+ * Unmounts React root views of screens that went off-screen while the main thread is idle, instead
+ * of at the end of the transition where it competes with the first frames of the next screen.
+ *
+ * At most {@link #MAX_UNMOUNTS_PER_IDLE} root views are unmounted per idle slot. Everything still
+ * pending is unmounted right away when the system reports memory pressure.
+ */
+final class DeferredUnmountScheduler implements MessageQueue.IdleHandler, ComponentCallbacks2 {
+
+  private static final String TAG = DeferredUnmountScheduler.class.getSimpleName();
+
+  private static final int MAX_UNMOUNTS_PER_IDLE = 1;
+
+  private final ArrayDeque<ReactRootView> pendingRootViews = new ArrayDeque<>();
+
+  private boolean isIdleHandlerAdded;
+
+  private boolean areComponentCallbacksRegistered;
+
+  /**
+   * Queues {@code reactRootView} for unmounting. Must be called on the main thread.
+   */
+  void schedule(ReactRootView reactRootView) {
+    UiThreadUtil.assertOnUiThread();
+    if (!areComponentCallbacksRegistered) {
+      areComponentCallbacksRegistered = true;
+      reactRootView.getContext().getApplicationContext().registerComponentCallbacks(this);
+    }
+    pendingRootViews.add(reactRootView);
+    if (!isIdleHandlerAdded) {
+      isIdleHandlerAdded = true;
+      Looper.myQueue().addIdleHandler(this);
+    }
+  }
+
+  /**
+   * Unmounts every pending root view synchronously.
+   */
+  void flush() {
+    UiThreadUtil.assertOnUiThread();
+    if (pendingRootViews.isEmpty()) {
+      return;
+    }
+    if (NavigationTrace.isVerbose()) {
+      NavigationTrace.event(TAG, "flushing " + pendingRootViews.size() + " root views");
+    }
+    while (!pendingRootViews.isEmpty()) {
+      pendingRootViews.poll().unmountReactApplication();
+    }
+    if (isIdleHandlerAdded) {
+      isIdleHandlerAdded = false;
+      Looper.myQueue().removeIdleHandler(this);
+    }
+  }
+
+  @Override
+  public boolean queueIdle() {
+    for (int i = 0; i < MAX_UNMOUNTS_PER_IDLE && !pendingRootViews.isEmpty(); i++) {
+      pendingRootViews.poll().unmountReactApplication();
+    }
+    isIdleHandlerAdded = !pendingRootViews.isEmpty();
+    return isIdleHandlerAdded;
+  }
+
+  @Override
+  public void onTrimMemory(int level) {
+    if (level >= TRIM_MEMORY_RUNNING_LOW) {
+      flush();
+    }
+  }
+
+  @Override
+  public void onLowMemory() {
+    flush();
+  }
+
+  @Override
+  public void onConfigurationChanged(Configuration newConfig) {
+  }
+}
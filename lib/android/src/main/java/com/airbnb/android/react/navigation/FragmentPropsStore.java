@@ -0,0 +1,510 @@
+package com.airbnb.android.react.navigation;
+
+import android.content.ComponentCallbacks2;
+import android.content.Context;
+import android.content.res.Configuration;
+import android.os.Bundle;
+import android.os.Parcel;
+import android.os.SystemClock;
+import android.support.annotation.Nullable;
+import android.support.v4.util.LruCache;
+import android.util.Log;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps fragment props that are too large to live in the fragment arguments. Those would make
+ * every {@code onSaveInstanceState} slow and eventually fail with a
+ * {@code TransactionTooLargeException}.
+ *
+ * Only a handle goes into the arguments. Props are written to a file in the cache directory as soon
+ * as they're stored, on a background thread, so they survive the process being killed in the
+ * background; recently used ones are also kept in memory. The file format is our own (see
+ * {@link #encode}) rather than a marshalled {@link Parcel}, which isn't stable across OS versions.
+ * Props holding values that format doesn't support are only kept in memory, for the life of the
+ * process. Files left behind by earlier boots or older than {@link #MAX_FILE_AGE_MS} are deleted
+ * when the store is first used.
+ *
+ * Must only be used from the main thread.
+ */
+final class FragmentPropsStore implements ComponentCallbacks2 {
+
+  private static final String TAG = FragmentPropsStore.class.getSimpleName();
+
+  /** Props bigger than this (in parceled bytes) are moved out of the arguments. */
+  static final int MAX_INLINE_BYTES = 32 * 1024;
+
+  private static final int MAX_MEMORY_BYTES = 4 * 1024 * 1024;
+
+  private static final long MAX_FILE_AGE_MS = TimeUnit.DAYS.toMillis(7);
+
+  private static final String DIRECTORY = "native-navigation-props";
+
+  private static final String TEMP_SUFFIX = ".tmp";
+
+  private static final int FORMAT_VERSION = 1;
+
+  private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+  private static final byte TYPE_NULL = 0;
+  private static final byte TYPE_BOOLEAN = 1;
+  private static final byte TYPE_INT = 2;
+  private static final byte TYPE_LONG = 3;
+  private static final byte TYPE_DOUBLE = 4;
+  private static final byte TYPE_STRING = 5;
+  private static final byte TYPE_BUNDLE = 6;
+  private static final byte TYPE_LIST = 7;
+
+  private static final class Entry {
+    final Bundle props;
+    final int size;
+    final boolean isPersisted;
+
+    Entry(Bundle props, int size, boolean isPersisted) {
+      this.props = props;
+      this.size = size;
+      this.isPersisted = isPersisted;
+    }
+  }
+
+  private final LruCache<String, Entry> memoryCache = new LruCache<String, Entry>(MAX_MEMORY_BYTES) {
+    @Override
+    protected int sizeOf(String handle, Entry entry) {
+      return entry.size;
+    }
+
+    @Override
+    protected void entryRemoved(boolean evicted, String handle, Entry oldValue, Entry newValue) {
+      if (evicted && !oldValue.isPersisted) {
+        Log.w(TAG, "Dropped props " + handle + " that could not be written to disk");
+      }
+    }
+  };
+
+  /** Encoded props that the background thread hasn't written yet, by handle. */
+  private final Map<String, byte[]> pendingWrites = new ConcurrentHashMap<>();
+
+  private final ExecutorService ioExecutor = Executors.newSingleThreadExecutor();
+
+  @Nullable
+  private File directory;
+
+  private int storedCount;
+
+  private long storedBytes;
+
+  private int memoryOnlyCount;
+
+  private int memoryHits;
+
+  private int fileHits;
+
+  private int misses;
+
+  /**
+   * Returns the size of {@code bundle} once parceled.
+   */
+  static int parcelSize(Bundle bundle) {
+    Parcel parcel = Parcel.obtain();
+    try {
+      parcel.writeBundle(bundle);
+      return parcel.dataSize();
+    } finally {
+      parcel.recycle();
+    }
+  }
+
+  /**
+   * Stores {@code props} and returns the handle to retrieve them with. Writing them to disk
+   * happens on a background thread.
+   */
+  String put(Context context, Bundle props) {
+    ensureInitialized(context);
+    String handle = UUID.randomUUID().toString();
+    Bundle copy = new Bundle(props);
+    byte[] bytes = null;
+    try {
+      bytes = encode(copy);
+    } catch (IOException e) {
+      memoryOnlyCount++;
+      Log.w(TAG, "Props " + handle + " are only kept in memory: " + e.getMessage());
+    }
+    if (bytes != null) {
+      write(handle, bytes);
+      storedBytes += bytes.length;
+    }
+    int size = bytes != null ? bytes.length : parcelSize(copy);
+    memoryCache.put(handle, new Entry(copy, size, bytes != null));
+    storedCount++;
+    return handle;
+  }
+
+  @Nullable
+  Bundle get(Context context, String handle) {
+    ensureInitialized(context);
+    Entry entry = memoryCache.get(handle);
+    if (entry != null) {
+      memoryHits++;
+      return new Bundle(entry.props);
+    }
+    byte[] bytes = pendingWrites.get(handle);
+    if (bytes == null) {
+      bytes = read(handle);
+    }
+    if (bytes != null) {
+      try {
+        Bundle props = decode(bytes);
+        fileHits++;
+        // Keep it around in memory, the screen is likely to come back again.
+        memoryCache.put(handle, new Entry(props, bytes.length, true));
+        return new Bundle(props);
+      } catch (IOException e) {
+        Log.e(TAG, "Could not read props " + handle, e);
+      }
+    }
+    misses++;
+    Log.w(TAG, "No props found for " + handle);
+    return null;
+  }
+
+  /**
+   * Forgets the props for {@code handle}, once the screen using them is gone for good.
+   */
+  void remove(final String handle) {
+    memoryCache.remove(handle);
+    final File directory = this.directory;
+    if (directory != null) {
+      ioExecutor.execute(new Runnable() {
+        @Override
+        public void run() {
+          pendingWrites.remove(handle);
+          //noinspection ResultOfMethodCallIgnored
+          new File(directory, handle).delete();
+        }
+      });
+    }
+  }
+
+  private void ensureInitialized(Context context) {
+    if (directory == null) {
+      Context applicationContext = context.getApplicationContext();
+      final File directory = new File(applicationContext.getCacheDir(), DIRECTORY);
+      this.directory = directory;
+      applicationContext.registerComponentCallbacks(this);
+      ioExecutor.execute(new Runnable() {
+        @Override
+        public void run() {
+          deleteStaleFiles(directory);
+        }
+      });
+    }
+  }
+
+  /**
+   * Saved instance state doesn't survive a reboot, so files from before the last boot can't be
+   * referenced anymore. Files are dropped after {@link #MAX_FILE_AGE_MS} on long uptimes as well.
+   */
+  private static void deleteStaleFiles(File directory) {
+    File[] files = directory.listFiles();
+    if (files == null) {
+      return;
+    }
+    long now = System.currentTimeMillis();
+    long bootTime = now - SystemClock.elapsedRealtime();
+    long cutoff = Math.max(bootTime, now - MAX_FILE_AGE_MS);
+    int deleted = 0;
+    for (File file : files) {
+      if (file.lastModified() < cutoff || file.getName().endsWith(TEMP_SUFFIX)) {
+        if (file.delete()) {
+          deleted++;
+        }
+      }
+    }
+    if (deleted > 0 && NavigationTrace.isVerbose()) {
+      NavigationTrace.event(TAG, "Deleted " + deleted + " stale props files");
+    }
+  }
+
+  private void write(final String handle, final byte[] bytes) {
+    final File directory = this.directory;
+    if (directory == null) {
+      return;
+    }
+    pendingWrites.put(handle, bytes);
+    ioExecutor.execute(new Runnable() {
+      @Override
+      public void run() {
+        if (!pendingWrites.containsKey(handle)) {
+          // Removed before we got to it.
+          return;
+        }
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+          Log.e(TAG, "Could not create " + directory);
+          return;
+        }
+        File temp = new File(directory, handle + TEMP_SUFFIX);
+        OutputStream out = null;
+        try {
+          FileOutputStream fileOut = new FileOutputStream(temp);
+          out = fileOut;
+          fileOut.write(bytes);
+          fileOut.getFD().sync();
+          out.close();
+          out = null;
+          if (!temp.renameTo(new File(directory, handle))) {
+            throw new IOException("Could not rename " + temp);
+          }
+        } catch (IOException e) {
+          Log.e(TAG, "Could not write props " + handle, e);
+        } finally {
+          closeQuietly(out);
+          pendingWrites.remove(handle);
+        }
+      }
+    });
+  }
+
+  @Nullable
+  private byte[] read(String handle) {
+    if (directory == null) {
+      return null;
+    }
+    File file = new File(directory, handle);
+    if (!file.isFile()) {
+      return null;
+    }
+    InputStream in = null;
+    try {
+      in = new FileInputStream(file);
+      byte[] bytes = new byte[(int) file.length()];
+      new DataInputStream(in).readFully(bytes);
+      return bytes;
+    } catch (IOException e) {
+      Log.e(TAG, "Could not read props " + handle, e);
+      return null;
+    } finally {
+      closeQuietly(in);
+    }
+  }
+
+  /**
+   * Writes {@code bundle} in a tagged binary format that only depends on this class. Fails for
+   * values other than the ones props converted from JS are made of.
+   */
+  private static byte[] encode(Bundle bundle) throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    DataOutputStream out = new DataOutputStream(bytes);
+    out.writeInt(FORMAT_VERSION);
+    writeBundle(out, bundle);
+    out.flush();
+    return bytes.toByteArray();
+  }
+
+  private static Bundle decode(byte[] bytes) throws IOException {
+    DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes));
+    int version = in.readInt();
+    if (version != FORMAT_VERSION) {
+      throw new IOException("Unknown format version " + version);
+    }
+    return readBundle(in);
+  }
+
+  private static void writeBundle(DataOutputStream out, Bundle bundle) throws IOException {
+    out.writeInt(bundle.size());
+    for (String key : bundle.keySet()) {
+      writeString(out, key);
+      writeValue(out, bundle.get(key));
+    }
+  }
+
+  private static void writeValue(DataOutputStream out, @Nullable Object value) throws IOException {
+    if (value == null) {
+      out.writeByte(TYPE_NULL);
+    } else if (value instanceof Boolean) {
+      out.writeByte(TYPE_BOOLEAN);
+      out.writeBoolean((Boolean) value);
+    } else if (value instanceof Integer) {
+      out.writeByte(TYPE_INT);
+      out.writeInt((Integer) value);
+    } else if (value instanceof Long) {
+      out.writeByte(TYPE_LONG);
+      out.writeLong((Long) value);
+    } else if (value instanceof Double) {
+      out.writeByte(TYPE_DOUBLE);
+      out.writeDouble((Double) value);
+    } else if (value instanceof String) {
+      out.writeByte(TYPE_STRING);
+      writeString(out, (String) value);
+    } else if (value instanceof Bundle) {
+      out.writeByte(TYPE_BUNDLE);
+      writeBundle(out, (Bundle) value);
+    } else if (value instanceof List) {
+      List<?> list = (List<?>) value;
+      out.writeByte(TYPE_LIST);
+      out.writeInt(list.size());
+      for (Object item : list) {
+        writeValue(out, item);
+      }
+    } else {
+      throw new IOException("Unsupported value of type " + value.getClass().getName());
+    }
+  }
+
+  private static Bundle readBundle(DataInputStream in) throws IOException {
+    int size = in.readInt();
+    Bundle bundle = new Bundle(size);
+    for (int i = 0; i < size; i++) {
+      String key = readString(in);
+      byte type = in.readByte();
+      switch (type) {
+        case TYPE_NULL:
+          bundle.putString(key, null);
+          break;
+        case TYPE_BOOLEAN:
+          bundle.putBoolean(key, in.readBoolean());
+          break;
+        case TYPE_INT:
+          bundle.putInt(key, in.readInt());
+          break;
+        case TYPE_LONG:
+          bundle.putLong(key, in.readLong());
+          break;
+        case TYPE_DOUBLE:
+          bundle.putDouble(key, in.readDouble());
+          break;
+        case TYPE_STRING:
+          bundle.putString(key, readString(in));
+          break;
+        case TYPE_BUNDLE:
+          bundle.putBundle(key, readBundle(in));
+          break;
+        case TYPE_LIST:
+          bundle.putSerializable(key, readList(in));
+          break;
+        default:
+          throw new IOException("Unknown value type " + type);
+      }
+    }
+    return bundle;
+  }
+
+  private static ArrayList<Object> readList(DataInputStream in) throws IOException {
+    int size = in.readInt();
+    ArrayList<Object> list = new ArrayList<>(size);
+    for (int i = 0; i < size; i++) {
+      byte type = in.readByte();
+      switch (type) {
+        case TYPE_NULL:
+          list.add(null);
+          break;
+        case TYPE_BOOLEAN:
+          list.add(in.readBoolean());
+          break;
+        case TYPE_INT:
+          list.add(in.readInt());
+          break;
+        case TYPE_LONG:
+          list.add(in.readLong());
+          break;
+        case TYPE_DOUBLE:
+          list.add(in.readDouble());
+          break;
+        case TYPE_STRING:
+          list.add(readString(in));
+          break;
+        case TYPE_BUNDLE:
+          list.add(readBundle(in));
+          break;
+        case TYPE_LIST:
+          list.add(readList(in));
+          break;
+        default:
+          throw new IOException("Unknown value type " + type);
+      }
+    }
+    return list;
+  }
+
+  /** Unlike {@link DataOutputStream#writeUTF}, not limited to 64KB. */
+  private static void writeString(DataOutputStream out, String value) throws IOException {
+    byte[] bytes = value.getBytes(UTF_8);
+    out.writeInt(bytes.length);
+    out.write(bytes);
+  }
+
+  private static String readString(DataInputStream in) throws IOException {
+    byte[] bytes = new byte[in.readInt()];
+    in.readFully(bytes);
+    return new String(bytes, UTF_8);
+  }
+
+  private static void closeQuietly(@Nullable Closeable closeable) {
+    if (closeable != null) {
+      try {
+        closeable.close();
+      } catch (IOException ignored) {
+      }
+    }
+  }
+
+  @Override
+  public void onTrimMemory(int level) {
+    if (level >= TRIM_MEMORY_UI_HIDDEN || level == TRIM_MEMORY_RUNNING_LOW
+        || level == TRIM_MEMORY_RUNNING_CRITICAL) {
+      trimMemory();
+    }
+  }
+
+  @Override
+  public void onLowMemory() {
+    trimMemory();
+  }
+
+  /**
+   * Drops the props that are safely on disk (or on their way there) from memory.
+   */
+  private void trimMemory() {
+    for (Map.Entry<String, Entry> entry : memoryCache.snapshot().entrySet()) {
+      if (entry.getValue().isPersisted) {
+        memoryCache.remove(entry.getKey());
+      }
+    }
+    NavigationTrace.state(TAG, this);
+  }
+
+  @Override
+  public void onConfigurationChanged(Configuration newConfig) {
+  }
+
+  @Override
+  public String toString() {
+    return "FragmentPropsStore{" +
+        "stored=" + storedCount + " (" + storedBytes + "B written)" +
+        ", memoryOnly=" + memoryOnlyCount +
+        ", inMemory=" + memoryCache.size() + "B" +
+        ", pendingWrites=" + pendingWrites.size() +
+        ", memoryHits=" + memoryHits +
+        ", fileHits=" + fileHits +
+        ", misses=" + misses +
+        '}';
+  }
+}
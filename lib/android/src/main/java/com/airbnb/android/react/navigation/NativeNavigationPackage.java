@@ -12,9 +12,24 @@ import java.util.List;
 
 @SuppressWarnings("unused")
 public class NativeNavigationPackage implements ReactPackage {
+  private final String bundleName;
+
+  public NativeNavigationPackage() {
+    this(ReactNavigationCoordinator.MAIN_BUNDLE);
+  }
+
+  /**
+   * @param bundleName
+   *     The name the bundle of the {@link com.facebook.react.ReactInstanceManager} this package is
+   *     added to was registered with, see {@link ReactNavigationCoordinator#injectBundle}.
+   */
+  public NativeNavigationPackage(String bundleName) {
+    this.bundleName = bundleName;
+  }
+
   @Override public List<NativeModule> createNativeModules(ReactApplicationContext reactContext) {
     return Collections.<NativeModule>singletonList(
-        new NavigatorModule(reactContext, ReactNavigationCoordinator.sharedInstance));
+        new NavigatorModule(reactContext, ReactNavigationCoordinator.sharedInstance, bundleName));
   }
 
   @SuppressWarnings("rawtypes") @Override
@@ -0,0 +1,258 @@
+package com.airbnb.android.react.navigation;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.support.annotation.Nullable;
+
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.ReactContext;
+import com.facebook.react.bridge.WritableArray;
+import com.facebook.react.bridge.WritableMap;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import static com.airbnb.android.react.navigation.ReactNativeUtils.maybeEmitEvent;
+
+/**
+ * Publishes the back stacks of every {@link ScreenCoordinator} to JS.
+ *
+ * JS can ask for a full snapshot (see {@link #snapshot(Collection)}) and then keep it up to date
+ * with the {@value #EVENT_NAME} event. Changes made during the same main thread message are sent as
+ * one event, in the form
+ * <pre>
+ * { revision, baseRevision, selectedTabId, updates: [
+ *   { navigator, tabId, stackCount, changes: [{ stack, tag, keep, push: [{ id, module }] }] }
+ * ] }
+ * </pre>
+ * where {@code keep} is the number of entries of stack {@code stack} that are unchanged and
+ * {@code push} the entries now on top of them. Stacks at or above {@code stackCount} are gone.
+ * Only coordinators that were part of a snapshot are updated, JS doesn't know the base state of the
+ * others. Everything here runs on the main thread.
+ */
+final class NavigationStateChannel {
+
+  static final String EVENT_NAME = "NativeNavigationStateChanged";
+
+  private final Handler handler = new Handler(Looper.getMainLooper());
+
+  /** The state JS was last told about, by coordinator. */
+  private final Map<ScreenCoordinator, PublishedStack[]> published = new WeakHashMap<>();
+
+  private final List<ScreenCoordinator> dirty = new ArrayList<>();
+
+  private int revision;
+
+  @Nullable private Integer selectedTabId;
+
+  private boolean selectedTabChanged;
+
+  private final Runnable flushRunnable = new Runnable() {
+    @Override
+    public void run() {
+      flush();
+    }
+  };
+
+  /**
+   * Marks the stacks of {@code coordinator} as changed; they're published with the next batch.
+   */
+  void onStacksChanged(ScreenCoordinator coordinator) {
+    if (!dirty.contains(coordinator)) {
+      dirty.add(coordinator);
+    }
+    scheduleFlush();
+  }
+
+  void onTabSelected(@Nullable Integer tabId) {
+    if (tabId == null ? selectedTabId == null : tabId.equals(selectedTabId)) {
+      return;
+    }
+    selectedTabId = tabId;
+    selectedTabChanged = true;
+    scheduleFlush();
+  }
+
+  /**
+   * Returns the current state of {@code coordinators}, applying pending changes first so the
+   * snapshot's revision lines up with the events that follow it.
+   */
+  WritableMap snapshot(Collection<ScreenCoordinator> coordinators) {
+    flush();
+    WritableMap snapshot = Arguments.createMap();
+    snapshot.putInt("revision", revision);
+    putTabId(snapshot, "selectedTabId", selectedTabId);
+    WritableArray navigators = Arguments.createArray();
+    for (ScreenCoordinator coordinator : coordinators) {
+      WritableMap navigator = Arguments.createMap();
+      navigator.putInt("navigator", coordinator.getNavigatorId());
+      putTabId(navigator, "tabId", coordinator.getTabId());
+      WritableArray stacks = Arguments.createArray();
+      PublishedStack[] state = capture(coordinator);
+      for (PublishedStack stack : state) {
+        WritableMap map = Arguments.createMap();
+        map.putString("tag", stack.tag);
+        map.putArray("entries", stack.entries(0));
+        stacks.pushMap(map);
+      }
+      navigator.putArray("stacks", stacks);
+      navigators.pushMap(navigator);
+    }
+    snapshot.putArray("navigators", navigators);
+    return snapshot;
+  }
+
+  private void scheduleFlush() {
+    handler.removeCallbacks(flushRunnable);
+    handler.post(flushRunnable);
+  }
+
+  private void flush() {
+    handler.removeCallbacks(flushRunnable);
+    if (dirty.isEmpty() && !selectedTabChanged) {
+      return;
+    }
+    List<Update> updates = new ArrayList<>(dirty.size());
+    for (ScreenCoordinator coordinator : dirty) {
+      PublishedStack[] before = published.get(coordinator);
+      if (before == null) {
+        // Never part of a snapshot.
+        continue;
+      }
+      PublishedStack[] after = capture(coordinator);
+      if (!PublishedStack.equals(before, after)) {
+        updates.add(new Update(coordinator, before, after));
+      }
+    }
+    dirty.clear();
+    if (updates.isEmpty() && !selectedTabChanged) {
+      return;
+    }
+    selectedTabChanged = false;
+    int baseRevision = revision++;
+    // A map can only be sent once, so every bundle gets its own copy.
+    for (ReactContext context : ReactNavigationCoordinator.sharedInstance.getReactContexts()) {
+      WritableMap event = Arguments.createMap();
+      event.putInt("revision", revision);
+      event.putInt("baseRevision", baseRevision);
+      putTabId(event, "selectedTabId", selectedTabId);
+      WritableArray array = Arguments.createArray();
+      for (Update update : updates) {
+        array.pushMap(update.toMap());
+      }
+      event.putArray("updates", array);
+      maybeEmitEvent(context, EVENT_NAME, event);
+    }
+  }
+
+  private PublishedStack[] capture(ScreenCoordinator coordinator) {
+    int count = coordinator.getBackStackCount();
+    PublishedStack[] stacks = new PublishedStack[count];
+    for (int i = 0; i < count; i++) {
+      stacks[i] = new PublishedStack(coordinator, i);
+    }
+    published.put(coordinator, stacks);
+    return stacks;
+  }
+
+  private static void putTabId(WritableMap map, String key, @Nullable Integer tabId) {
+    if (tabId == null) {
+      map.putNull(key);
+    } else {
+      map.putInt(key, tabId);
+    }
+  }
+
+  private static final class PublishedStack {
+    final String tag;
+    final long[] ids;
+    final String[] modules;
+
+    PublishedStack(ScreenCoordinator coordinator, int index) {
+      tag = coordinator.getBackStackTag(index);
+      int depth = coordinator.getBackStackDepth(index);
+      ids = new long[depth];
+      modules = new String[depth];
+      for (int i = 0; i < depth; i++) {
+        ids[i] = coordinator.getEntryId(index, i);
+        modules[i] = coordinator.getModuleName(index, i);
+      }
+    }
+
+    /** Number of bottom entries {@code other} shares with this stack. */
+    int commonDepth(@Nullable PublishedStack other) {
+      if (other == null || !tag.equals(other.tag)) {
+        return 0;
+      }
+      int max = Math.min(ids.length, other.ids.length);
+      int i = 0;
+      while (i < max && ids[i] == other.ids[i]) {
+        i++;
+      }
+      return i;
+    }
+
+    WritableArray entries(int from) {
+      WritableArray entries = Arguments.createArray();
+      for (int i = from; i < ids.length; i++) {
+        WritableMap entry = Arguments.createMap();
+        entry.putDouble("id", ids[i]);
+        entry.putString("module", modules[i]);
+        entries.pushMap(entry);
+      }
+      return entries;
+    }
+
+    static boolean equals(PublishedStack[] a, PublishedStack[] b) {
+      if (a.length != b.length) {
+        return false;
+      }
+      for (int i = 0; i < a.length; i++) {
+        if (a[i].commonDepth(b[i]) != a[i].ids.length || a[i].ids.length != b[i].ids.length) {
+          return false;
+        }
+      }
+      return true;
+    }
+  }
+
+  private static final class Update {
+    final int navigatorId;
+    @Nullable final Integer tabId;
+    final PublishedStack[] before;
+    final PublishedStack[] after;
+
+    Update(ScreenCoordinator coordinator, PublishedStack[] before, PublishedStack[] after) {
+      this.navigatorId = coordinator.getNavigatorId();
+      this.tabId = coordinator.getTabId();
+      this.before = before;
+      this.after = after;
+    }
+
+    WritableMap toMap() {
+      WritableMap map = Arguments.createMap();
+      map.putInt("navigator", navigatorId);
+      putTabId(map, "tabId", tabId);
+      map.putInt("stackCount", after.length);
+      WritableArray changes = Arguments.createArray();
+      for (int i = 0; i < after.length; i++) {
+        PublishedStack previous = i < before.length ? before[i] : null;
+        int keep = after[i].commonDepth(previous);
+        if (previous != null && keep == previous.ids.length && keep == after[i].ids.length) {
+          continue;
+        }
+        WritableMap change = Arguments.createMap();
+        change.putInt("stack", i);
+        change.putString("tag", after[i].tag);
+        change.putInt("keep", keep);
+        change.putArray("push", after[i].entries(keep));
+        changes.pushMap(change);
+      }
+      map.putArray("changes", changes);
+      return map;
+    }
+  }
+}
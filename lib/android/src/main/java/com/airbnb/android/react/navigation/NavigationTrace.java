@@ -0,0 +1,135 @@
+package com.airbnb.android.react.navigation;
+
+import android.os.Trace;
+import android.util.Log;
+
+import java.lang.reflect.Method;
+
+/**
+ * Tracing for the navigation pipeline. Off by default, in which case every call is a single
+ * volatile read: messages that need to be built are passed in pieces and only put together when
+ * the level asks for them.
+ *
+ * {@link Level#SECTIONS} emits {@link Trace} sections that show up in systrace and Perfetto,
+ * {@link Level#VERBOSE} also logs navigation events and state.
+ *
+ * @see ReactNavigationCoordinator#injectTraceLevel
+ */
+public final class NavigationTrace {
+
+  public enum Level {
+    OFF,
+    SECTIONS,
+    VERBOSE,
+  }
+
+  /** {@code Trace.TRACE_TAG_APP}, hidden before API 29 like the async section methods. */
+  private static final long TRACE_TAG_APP = 1L << 12;
+
+  private static volatile Level level = Level.OFF;
+
+  private static Method asyncTraceBegin;
+
+  private static Method asyncTraceEnd;
+
+  private static boolean isAsyncTraceResolved;
+
+  private NavigationTrace() {
+  }
+
+  static void setLevel(Level level) {
+    NavigationTrace.level = level;
+  }
+
+  static boolean isEnabled() {
+    return level != Level.OFF;
+  }
+
+  static boolean isVerbose() {
+    return level == Level.VERBOSE;
+  }
+
+  /**
+   * Starts a section, which must be ended by {@link #endSection()} on the same thread.
+   */
+  static void beginSection(String name) {
+    if (level != Level.OFF) {
+      Trace.beginSection(name);
+    }
+  }
+
+  static void endSection() {
+    if (level != Level.OFF) {
+      Trace.endSection();
+    }
+  }
+
+  /**
+   * Starts an async section called {@code name + " " + subject}, which may end on any thread
+   * with {@link #endAsyncSection} and the same arguments.
+   */
+  static void beginAsyncSection(String name, String subject) {
+    if (level != Level.OFF) {
+      invokeAsync(true, name + " " + subject);
+    }
+  }
+
+  static void endAsyncSection(String name, String subject) {
+    if (level != Level.OFF) {
+      invokeAsync(false, name + " " + subject);
+    }
+  }
+
+  private static void invokeAsync(boolean begin, String sectionName) {
+    Method method = getAsyncMethod(begin);
+    if (method == null) {
+      return;
+    }
+    try {
+      method.invoke(null, TRACE_TAG_APP, sectionName, sectionName.hashCode());
+    } catch (Exception e) {
+      Log.w("NavigationTrace", "Could not trace " + sectionName, e);
+    }
+  }
+
+  private static synchronized Method getAsyncMethod(boolean begin) {
+    if (!isAsyncTraceResolved) {
+      isAsyncTraceResolved = true;
+      try {
+        asyncTraceBegin =
+            Trace.class.getMethod("asyncTraceBegin", long.class, String.class, int.class);
+        asyncTraceEnd =
+            Trace.class.getMethod("asyncTraceEnd", long.class, String.class, int.class);
+      } catch (Exception e) {
+        Log.w("NavigationTrace", "Async trace sections are not available", e);
+      }
+    }
+    return begin ? asyncTraceBegin : asyncTraceEnd;
+  }
+
+  static void event(String tag, String name) {
+    if (level == Level.VERBOSE) {
+      Log.d(tag, name);
+    }
+  }
+
+  /**
+   * Logs {@code name} followed by {@code detail}, whose {@code toString} is only called when the
+   * event is logged.
+   */
+  static void event(String tag, String name, Object detail) {
+    if (level == Level.VERBOSE) {
+      Log.d(tag, name + " " + detail);
+    }
+  }
+
+  /**
+   * Logs the state of {@code subject}, whose {@code toString} is only called when the event is
+   * logged.
+   */
+  static void state(String tag, Object subject) {
+    if (level == Level.VERBOSE) {
+      Log.d(tag, subject.toString());
+    }
+  }
+}
@@ -11,11 +11,14 @@ import com.facebook.react.bridge.Promise;
 import com.facebook.react.bridge.ReactApplicationContext;
 import com.facebook.react.bridge.ReactContextBaseJavaModule;
 import com.facebook.react.bridge.ReactMethod;
+import com.facebook.react.bridge.ReadableArray;
 import com.facebook.react.bridge.ReadableMap;
 import com.facebook.react.bridge.ReadableType;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import static com.airbnb.android.react.navigation.ReactNativeIntents.EXTRA_IS_DISMISS;
@@ -27,12 +30,19 @@ class NavigatorModule extends ReactContextBaseJavaModule {
 
   private static final String CLOSE_BEHAVIOR_DISMISS = "dismiss";
   private static final String RESULT_CODE = "resultCode";
+  private static final String SCREEN_NAME = "screenName";
+  private static final String SCREEN_PROPS = "props";
+  private static final String CODE_INVALID_SCREENS = "E_INVALID_SCREENS";
+  private static final String CODE_NO_ACTIVITY = "E_NO_ACTIVITY";
   private final Handler handler = new Handler(Looper.getMainLooper());
   private final ReactNavigationCoordinator coordinator;
+  private final String bundleName;
 
-  NavigatorModule(ReactApplicationContext reactContext, ReactNavigationCoordinator coordinator) {
+  NavigatorModule(ReactApplicationContext reactContext, ReactNavigationCoordinator coordinator,
+      String bundleName) {
     super(reactContext);
     this.coordinator = coordinator;
+    this.bundleName = bundleName;
   }
 
   @Override public String getName() {
@@ -58,7 +68,8 @@ class NavigatorModule extends ReactContextBaseJavaModule {
         sceneName,
         properties,
         waitForRender,
-        mode
+        mode,
+        bundleName
     );
   }
 
@@ -85,36 +96,89 @@ class NavigatorModule extends ReactContextBaseJavaModule {
   @SuppressWarnings({"UnusedParameters", "unused"})
   @ReactMethod
   public void signalFirstRenderComplete(String id) {
-    final ReactInterface component = coordinator.componentFromId(id);
-    if (component != null) {
-      handler.post(new Runnable() {
-        @Override public void run() {
-          component.signalFirstRenderComplete();
-        }
-      });
+    NavigationTrace.beginSection("NavigatorModule.signalFirstRenderComplete");
+    try {
+      final ReactInterface component = coordinator.componentFromId(id);
+      if (component != null) {
+        handler.post(new Runnable() {
+          @Override public void run() {
+            NavigationTrace.beginSection("NavigatorModule.signalFirstRenderComplete dispatch");
+            try {
+              component.signalFirstRenderComplete();
+            } finally {
+              NavigationTrace.endSection();
+            }
+          }
+        });
+      }
+    } finally {
+      NavigationTrace.endSection();
     }
   }
 
-  @SuppressWarnings("UnusedParameters")
+  /**
+   * Resolves with the back stacks of the current activity. Later changes are sent as diffs on the
+   * {@value NavigationStateChannel#EVENT_NAME} event, see {@link NavigationStateChannel}.
+   */
+  @SuppressWarnings("unused")
   @ReactMethod
-  public void push(final String screenName, final ReadableMap props,
-      final ReadableMap options) {
+  public void getNavigationState(final Promise promise) {
     handler.post(new Runnable() {
       @Override
       public void run() {
         Activity activity = getCurrentActivity();
-        if (activity == null) {
-          return;
+        List<ScreenCoordinator> coordinators;
+        if (activity instanceof ReactNativeTabActivity) {
+          coordinators = ((ReactNativeTabActivity) activity).getTabCoordinator()
+              .getScreenCoordinators();
+        } else if (activity instanceof ScreenCoordinatorComponent
+            && ((ScreenCoordinatorComponent) activity).getScreenCoordinator() != null) {
+          coordinators = Collections.singletonList(
+              ((ScreenCoordinatorComponent) activity).getScreenCoordinator());
+        } else {
+          coordinators = Collections.emptyList();
         }
-        ensureCoordinatorComponent(activity);
-        ((ScreenCoordinatorComponent) activity).getScreenCoordinator().pushScreen(
-            screenName,
-            ConversionUtil.toBundle(props),
-            ConversionUtil.toBundle(options));
+        promise.resolve(coordinator.getNavigationStateChannel().snapshot(coordinators));
       }
     });
   }
 
+  @SuppressWarnings("UnusedParameters")
+  @ReactMethod
+  public void push(final String screenName, final ReadableMap props,
+      final ReadableMap options) {
+    NavigationTrace.beginSection("NavigatorModule.push");
+    try {
+      // Ended by the fragment once its first frame after rendering is drawn. Keyed by the instance
+      // id, so that pushing the same screen twice in a row gives two sections.
+      final String instanceId = ReactNativeFragment.newInstanceId(screenName);
+      NavigationTrace.beginAsyncSection(ReactNativeFragment.TRACE_NAVIGATE, instanceId);
+      handler.post(new Runnable() {
+        @Override
+        public void run() {
+          Activity activity = getCurrentActivity();
+          if (activity == null) {
+            NavigationTrace.endAsyncSection(ReactNativeFragment.TRACE_NAVIGATE, instanceId);
+            return;
+          }
+          NavigationTrace.beginSection("NavigatorModule.push dispatch");
+          try {
+            ensureCoordinatorComponent(activity);
+            ((ScreenCoordinatorComponent) activity).getScreenCoordinator().pushScreenFromBridge(
+                screenName,
+                props,
+                ConversionUtil.toBundle(options),
+                instanceId);
+          } finally {
+            NavigationTrace.endSection();
+          }
+        }
+      });
+    } finally {
+      NavigationTrace.endSection();
+    }
+  }
+
   @SuppressWarnings({"UnusedParameters", "unused"})
   @ReactMethod
   public void pushNative(String name, ReadableMap props, ReadableMap options, Promise promise) {
@@ -122,12 +186,16 @@ class NavigatorModule extends ReactContextBaseJavaModule {
     if (activity == null) {
       return;
     }
+    NavigationTrace.beginSection("NavigatorModule.pushNative");
+    try {
+      boolean startedFragment = coordinator.startFragmentForKey(name, props, options);
 
-    boolean startedFragment = coordinator.startFragmentForKey(name, props, options);
-
-    if (!startedFragment) {
-      Intent intent = coordinator.intentForKey(activity.getBaseContext(), name, props);
-      startActivityWithPromise(activity, intent, promise, options);
+      if (!startedFragment) {
+        Intent intent = coordinator.intentForKey(activity.getBaseContext(), name, props);
+        startActivityWithPromise(activity, intent, promise, options);
+      }
+    } finally {
+      NavigationTrace.endSection();
     }
   }
 
@@ -135,21 +203,35 @@ class NavigatorModule extends ReactContextBaseJavaModule {
   @ReactMethod
   public void present(final String screenName, final ReadableMap props, final ReadableMap options,
       final Promise promise) {
-    handler.post(new Runnable() {
-      @Override
-      public void run() {
-        Activity activity = getCurrentActivity();
-        if (activity == null) {
-          return;
+    NavigationTrace.beginSection("NavigatorModule.present");
+    try {
+      final String instanceId = ReactNativeFragment.newInstanceId(screenName);
+      NavigationTrace.beginAsyncSection(ReactNativeFragment.TRACE_NAVIGATE, instanceId);
+      handler.post(new Runnable() {
+        @Override
+        public void run() {
+          Activity activity = getCurrentActivity();
+          if (activity == null) {
+            NavigationTrace.endAsyncSection(ReactNativeFragment.TRACE_NAVIGATE, instanceId);
+            return;
+          }
+          NavigationTrace.beginSection("NavigatorModule.present dispatch");
+          try {
+            ensureCoordinatorComponent(activity);
+            ((ScreenCoordinatorComponent) activity).getScreenCoordinator().presentScreenFromBridge(
+                screenName,
+                props,
+                options,
+                promise,
+                instanceId);
+          } finally {
+            NavigationTrace.endSection();
+          }
         }
-        ensureCoordinatorComponent(activity);
-        ((ScreenCoordinatorComponent) activity).getScreenCoordinator().presentScreen(
-            screenName,
-            ConversionUtil.toBundle(props),
-            ConversionUtil.toBundle(options),
-            promise);
-      }
-    });
+      });
+    } finally {
+      NavigationTrace.endSection();
+    }
   }
 
   @SuppressWarnings({"UnusedParameters", "unused"})
@@ -159,42 +241,138 @@ class NavigatorModule extends ReactContextBaseJavaModule {
     if (activity == null) {
       return;
     }
-    Intent intent = coordinator.intentForKey(activity.getBaseContext(), name, props);
-    startActivityWithPromise(activity, intent, promise, options);
+    NavigationTrace.beginSection("NavigatorModule.presentNative");
+    try {
+      Intent intent = coordinator.intentForKey(activity.getBaseContext(), name, props);
+      startActivityWithPromise(activity, intent, promise, options);
+    } finally {
+      NavigationTrace.endSection();
+    }
+  }
+
+  /**
+   * Replaces the current activity's back stacks with {@code screens}, an array of
+   * {@code { screenName, props }} ordered bottom first. Only the last screen is rendered.
+   * {@code promise} is rejected without touching the stacks if {@code screens} is empty or holds
+   * anything else, and resolved once the new stack is committed.
+   */
+  @ReactMethod
+  public void resetTo(final ReadableArray screens, final Promise promise) {
+    NavigationTrace.beginSection("NavigatorModule.resetTo");
+    try {
+      final List<ScreenDescriptor> descriptors = toScreenDescriptors(screens);
+      if (descriptors == null) {
+        promise.reject(CODE_INVALID_SCREENS,
+            "Expected a non-empty array of { screenName, props }, got " + screens);
+        return;
+      }
+      handler.post(new Runnable() {
+        @Override
+        public void run() {
+          Activity activity = getCurrentActivity();
+          if (activity == null) {
+            promise.reject(CODE_NO_ACTIVITY, "No activity to reset the screens of");
+            return;
+          }
+          NavigationTrace.beginSection("NavigatorModule.resetTo dispatch");
+          try {
+            ensureCoordinatorComponent(activity);
+            ((ScreenCoordinatorComponent) activity).getScreenCoordinator().resetTo(descriptors);
+          } finally {
+            NavigationTrace.endSection();
+          }
+          promise.resolve(null);
+        }
+      });
+    } finally {
+      NavigationTrace.endSection();
+    }
+  }
+
+  /**
+   * Returns the descriptors for {@code screens}, or {@code null} if it isn't a non-empty array of
+   * screens with a name and optional props.
+   */
+  @Nullable
+  private static List<ScreenDescriptor> toScreenDescriptors(ReadableArray screens) {
+    if (screens.size() == 0) {
+      return null;
+    }
+    List<ScreenDescriptor> descriptors = new ArrayList<>(screens.size());
+    for (int i = 0; i < screens.size(); i++) {
+      if (screens.getType(i) != ReadableType.Map) {
+        return null;
+      }
+      ReadableMap screen = screens.getMap(i);
+      if (!screen.hasKey(SCREEN_NAME) || screen.getType(SCREEN_NAME) != ReadableType.String
+          || screen.getString(SCREEN_NAME).isEmpty()) {
+        return null;
+      }
+      ReadableMap props = null;
+      if (screen.hasKey(SCREEN_PROPS) && !screen.isNull(SCREEN_PROPS)) {
+        if (screen.getType(SCREEN_PROPS) != ReadableType.Map) {
+          return null;
+        }
+        props = screen.getMap(SCREEN_PROPS);
+      }
+      descriptors.add(new ScreenDescriptor(
+          screen.getString(SCREEN_NAME), props == null ? null : ConversionUtil.toBundle(props)));
+    }
+    return descriptors;
   }
 
   @ReactMethod
   public void dismiss(final ReadableMap payload,
       @SuppressWarnings("UnusedParameters") boolean animated) {
-    handler.post(new Runnable() {
-      @Override
-      public void run() {
-        // TODO: handle payload
-        Activity activity = getCurrentActivity();
-        if (activity == null) {
-          return;
+    NavigationTrace.beginSection("NavigatorModule.dismiss");
+    try {
+      handler.post(new Runnable() {
+        @Override
+        public void run() {
+          // TODO: handle payload
+          Activity activity = getCurrentActivity();
+          if (activity == null) {
+            return;
+          }
+          NavigationTrace.beginSection("NavigatorModule.dismiss dispatch");
+          try {
+            ensureCoordinatorComponent(activity);
+            ((ScreenCoordinatorComponent) activity).getScreenCoordinator().dismiss();
+          } finally {
+            NavigationTrace.endSection();
+          }
         }
-        ensureCoordinatorComponent(activity);
-        ((ScreenCoordinatorComponent) activity).getScreenCoordinator().dismiss();
-      }
-    });
+      });
+    } finally {
+      NavigationTrace.endSection();
+    }
   }
 
   @SuppressWarnings("UnusedParameters")
   @ReactMethod
   public void pop(ReadableMap payload, boolean animated) {
-    handler.post(new Runnable() {
-      @Override
-      public void run() {
-        // TODO: handle payload
-        Activity activity = getCurrentActivity();
-        if (activity == null) {
-          return;
+    NavigationTrace.beginSection("NavigatorModule.pop");
+    try {
+      handler.post(new Runnable() {
+        @Override
+        public void run() {
+          // TODO: handle payload
+          Activity activity = getCurrentActivity();
+          if (activity == null) {
+            return;
+          }
+          NavigationTrace.beginSection("NavigatorModule.pop dispatch");
+          try {
+            ensureCoordinatorComponent(activity);
+            ((ScreenCoordinatorComponent) activity).getScreenCoordinator().onBackPressed();
+          } finally {
+            NavigationTrace.endSection();
+          }
         }
-        ensureCoordinatorComponent(activity);
-        ((ScreenCoordinatorComponent) activity).getScreenCoordinator().onBackPressed();
-      }
-    });
+      });
+    } finally {
+      NavigationTrace.endSection();
+    }
   }
 
   private interface NavigationModifier {
@@ -0,0 +1,106 @@
+package com.airbnb.android.react.navigation;
+
+import com.airbnb.android.R;
+
+import android.content.Context;
+import android.support.annotation.AnimRes;
+import android.support.annotation.Nullable;
+import android.util.SparseArray;
+import android.view.animation.AccelerateDecelerateInterpolator;
+import android.view.animation.AccelerateInterpolator;
+import android.view.animation.AlphaAnimation;
+import android.view.animation.Animation;
+import android.view.animation.AnimationUtils;
+import android.view.animation.Interpolator;
+import android.view.animation.TranslateAnimation;
+
+/**
+ * Builds the animations of {@link ScreenCoordinator.PresentAnimation} in code instead of
+ * inflating the XML resources on every transition.
+ *
+ * The resource ids are still what the fragment transaction carries around, they are only used as
+ * keys here. Interpolators are shared, and an animation instance is reused for the same resource
+ * once its previous run has ended.
+ *
+ * Support fragments only accept view {@link Animation}s from {@code onCreateAnimation}, so this
+ * doesn't use {@code Animator}s.
+ */
+final class PresentAnimationEngine {
+
+  /** Use the duration of the XML resources, {@code config_shortAnimTime}. */
+  static final long DEFAULT_DURATION = -1;
+
+  private final Interpolator slideInterpolator = new AccelerateDecelerateInterpolator();
+
+  private final Interpolator fadeInterpolator = new AccelerateInterpolator();
+
+  private final SparseArray<Animation> animations = new SparseArray<>();
+
+  private final Context context;
+
+  private final long defaultDurationMs;
+
+  PresentAnimationEngine(Context context) {
+    this.context = context;
+    defaultDurationMs = context.getResources().getInteger(android.R.integer.config_shortAnimTime);
+  }
+
+  /**
+   * Returns a ready to start animation for {@code anim}, or {@code null} if {@code anim} is 0.
+   */
+  @Nullable
+  Animation create(@AnimRes int anim, long durationMs) {
+    if (anim == 0) {
+      return null;
+    }
+    Animation animation = animations.get(anim);
+    if (animation == null || !animation.hasEnded()) {
+      // Handed out and not finished yet (or never built), we can't share it.
+      animation = build(anim);
+      animations.put(anim, animation);
+    } else {
+      animation.reset();
+      animation.setAnimationListener(null);
+    }
+    animation.setDuration(durationMs < 0 ? defaultDurationMs : durationMs);
+    return animation;
+  }
+
+  private Animation build(@AnimRes int anim) {
+    if (anim == R.anim.slide_up) {
+      return slide(0, 0, 1, 0);
+    } else if (anim == R.anim.slide_down) {
+      return slide(0, 0, 0, 1);
+    } else if (anim == R.anim.slide_in_right) {
+      return slide(1, 0, 0, 0);
+    } else if (anim == R.anim.slide_out_left) {
+      return slide(0, -1, 0, 0);
+    } else if (anim == R.anim.slide_in_left) {
+      return slide(-1, 0, 0, 0);
+    } else if (anim == R.anim.slide_out_right) {
+      return slide(0, 1, 0, 0);
+    } else if (anim == R.anim.delay) {
+      return slide(0, 0, 0, 0);
+    } else if (anim == R.anim.fade_in) {
+      return fade(0, 1);
+    } else if (anim == R.anim.fade_out) {
+      return fade(1, 0);
+    }
+    // Not one of ours, fall back to inflating it.
+    return AnimationUtils.loadAnimation(context, anim);
+  }
+
+  private Animation slide(float fromX, float toX, float fromY, float toY) {
+    Animation animation = new TranslateAnimation(
+        Animation.RELATIVE_TO_PARENT, fromX, Animation.RELATIVE_TO_PARENT, toX,
+        Animation.RELATIVE_TO_PARENT, fromY, Animation.RELATIVE_TO_PARENT, toY);
+    animation.setInterpolator(slideInterpolator);
+    return animation;
+  }
+
+  private Animation fade(float from, float to) {
+    Animation animation = new AlphaAnimation(from, to);
+    animation.setInterpolator(fadeInterpolator);
+    return animation;
+  }
+}
@@ -0,0 +1,208 @@
+package com.airbnb.android.react.navigation;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.os.SystemClock;
+import android.support.annotation.Nullable;
+import android.util.Log;
+
+import com.facebook.react.bridge.Promise;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Promises waiting for the result of an activity started from JS, by request code.
+ *
+ * Safe to use from any thread. Promises that are still pending after {@link #TTL_MS} are rejected
+ * and dropped, so an activity that never returns doesn't keep its promise (and the JS context it
+ * belongs to) alive forever.
+ *
+ * The promises themselves can't survive the process, but a small correlation table of request
+ * code to screen is persisted. When a result comes in for a request code from before a process
+ * restart, it is counted and logged as orphaned instead of silently dropped. Request codes keep
+ * counting from where the previous process stopped, so they don't collide with those entries.
+ */
+final class PromiseRegistry {
+
+  private static final String TAG = PromiseRegistry.class.getSimpleName();
+
+  static final long TTL_MS = TimeUnit.MINUTES.toMillis(30);
+
+  /** Request codes of {@code FragmentActivity#startActivityForResult} are limited to 16 bits. */
+  private static final int MAX_REQUEST_CODE = 0xffff;
+
+  private static final String PREFERENCES_NAME = "native_navigation_promises";
+
+  private static final String KEY_NEXT_REQUEST_CODE = "next_request_code";
+
+  private static final String CODE_EXPIRED = "E_RESULT_EXPIRED";
+
+  private final Map<Integer, Entry> promises = new ConcurrentHashMap<>();
+
+  private final AtomicInteger nextRequestCode = new AtomicInteger(1);
+
+  private final AtomicInteger resolvedCount = new AtomicInteger();
+
+  private final AtomicInteger expiredCount = new AtomicInteger();
+
+  private final AtomicInteger orphanedCount = new AtomicInteger();
+
+  @Nullable
+  private volatile SharedPreferences correlations;
+
+  /**
+   * Registers {@code promise} and returns the request code to start the activity with.
+   * {@code description} identifies the request in logs, if its result arrives late.
+   */
+  int register(Context context, Promise promise, String description) {
+    SharedPreferences preferences = getCorrelations(context);
+    evictExpired();
+    int requestCode = toRequestCode(nextRequestCode.getAndIncrement());
+    promises.put(requestCode, new Entry(promise, description));
+    preferences.edit()
+        .putString(String.valueOf(requestCode), System.currentTimeMillis() + ":" + description)
+        .putInt(KEY_NEXT_REQUEST_CODE, nextRequestCode.get())
+        .apply();
+    return requestCode;
+  }
+
+  /**
+   * Returns and forgets the promise registered for {@code requestCode}, or {@code null} if there
+   * is none, e.g. because the request code isn't ours or the process died in the meantime.
+   * {@code context} is used to load the correlations if this is the first call since the process
+   * started, which is the case for results arriving after a restart.
+   */
+  @Nullable
+  Promise remove(Context context, int requestCode) {
+    SharedPreferences preferences = getCorrelations(context);
+    Entry entry = promises.remove(requestCode);
+    evictExpired();
+    String key = String.valueOf(requestCode);
+    if (preferences.contains(key)) {
+      if (entry == null) {
+        orphanedCount.incrementAndGet();
+        String correlation = preferences.getString(key, "0:");
+        int separator = correlation.indexOf(':');
+        long ageMs = System.currentTimeMillis() - parseTime(correlation, separator);
+        Log.w(TAG, "Result for " + correlation.substring(separator + 1) + ", started "
+            + TimeUnit.MILLISECONDS.toSeconds(ageMs) + "s ago, arrived after its promise was lost");
+      }
+      preferences.edit().remove(key).apply();
+    }
+    if (entry == null) {
+      return null;
+    }
+    resolvedCount.incrementAndGet();
+    return entry.promise;
+  }
+
+  int peekNextRequestCode() {
+    return toRequestCode(nextRequestCode.get());
+  }
+
+  private static int toRequestCode(int counter) {
+    return (counter & Integer.MAX_VALUE) % MAX_REQUEST_CODE + 1;
+  }
+
+  int getOutstandingCount() {
+    return promises.size();
+  }
+
+  int getResolvedCount() {
+    return resolvedCount.get();
+  }
+
+  int getExpiredCount() {
+    return expiredCount.get();
+  }
+
+  int getOrphanedCount() {
+    return orphanedCount.get();
+  }
+
+  private SharedPreferences getCorrelations(Context context) {
+    SharedPreferences preferences = correlations;
+    if (preferences == null) {
+      synchronized (this) {
+        preferences = correlations;
+        if (preferences == null) {
+          preferences = context.getApplicationContext()
+              .getSharedPreferences(PREFERENCES_NAME, Context.MODE_PRIVATE);
+          nextRequestCode.set(preferences.getInt(KEY_NEXT_REQUEST_CODE, 1));
+          pruneCorrelations(preferences);
+          correlations = preferences;
+        }
+      }
+    }
+    return preferences;
+  }
+
+  /**
+   * Drops the correlations left over by previous processes that are too old to still get a
+   * result.
+   */
+  private static void pruneCorrelations(SharedPreferences preferences) {
+    long now = System.currentTimeMillis();
+    SharedPreferences.Editor editor = preferences.edit();
+    for (Map.Entry<String, ?> entry : preferences.getAll().entrySet()) {
+      if (entry.getValue() instanceof String) {
+        String correlation = (String) entry.getValue();
+        if (now - parseTime(correlation, correlation.indexOf(':')) > TTL_MS) {
+          editor.remove(entry.getKey());
+        }
+      }
+    }
+    editor.apply();
+  }
+
+  private static long parseTime(String correlation, int separator) {
+    try {
+      return Long.parseLong(correlation.substring(0, Math.max(separator, 0)));
+    } catch (NumberFormatException e) {
+      return 0;
+    }
+  }
+
+  private void evictExpired() {
+    long now = SystemClock.elapsedRealtime();
+    Iterator<Map.Entry<Integer, Entry>> iterator = promises.entrySet().iterator();
+    while (iterator.hasNext()) {
+      Map.Entry<Integer, Entry> mapEntry = iterator.next();
+      Entry entry = mapEntry.getValue();
+      if (now - entry.createdAtMs > TTL_MS && promises.remove(mapEntry.getKey(), entry)) {
+        expiredCount.incrementAndGet();
+        SharedPreferences preferences = correlations;
+        if (preferences != null) {
+          preferences.edit().remove(String.valueOf(mapEntry.getKey())).apply();
+        }
+        entry.promise.reject(CODE_EXPIRED, "No result for " + entry.description + " after "
+            + TimeUnit.MILLISECONDS.toMinutes(now - entry.createdAtMs) + " minutes");
+      }
+    }
+  }
+
+  @Override
+  public String toString() {
+    return "PromiseRegistry{" +
+        "outstanding=" + promises.size() +
+        ", resolved=" + resolvedCount.get() +
+        ", expired=" + expiredCount.get() +
+        ", orphaned=" + orphanedCount.get() +
+        '}';
+  }
+
+  private static final class Entry {
+    final Promise promise;
+    final String description;
+    final long createdAtMs = SystemClock.elapsedRealtime();
+
+    Entry(Promise promise, String description) {
+      this.promise = promise;
+      this.description = description;
+    }
+  }
+}
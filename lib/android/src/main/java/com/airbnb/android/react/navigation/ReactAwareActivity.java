@@ -18,14 +18,14 @@ public abstract class ReactAwareActivity extends AppCompatActivity
 
   @Override
   protected void onPause() {
-    reactInstanceManager.onHostPause(this);
+    reactNavigationCoordinator.onHostPause(this);
     super.onPause();
   }
 
   @Override
   protected void onResume() {
     super.onResume();
-    reactInstanceManager.onHostResume(this, this);
+    reactNavigationCoordinator.onHostResume(this);
   }
 
   @Override
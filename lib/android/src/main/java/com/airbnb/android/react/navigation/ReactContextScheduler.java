@@ -0,0 +1,166 @@
+package com.airbnb.android.react.navigation;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.MessageQueue;
+
+import com.facebook.react.ReactInstanceManager;
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.ReactContext;
+import com.facebook.react.bridge.WritableArray;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Owns the creation of the React context of a {@link ReactInstanceManager}.
+ *
+ * Creation is requested at most once no matter how many screens ask for it, and everything
+ * waiting for the context goes into a single queue that is drained on the main thread as soon as
+ * it is ready. Screens can also be marked for preloading, their JS modules are then required
+ * during the first idle time after the context is ready rather than when they are first shown.
+ */
+final class ReactContextScheduler implements ReactInstanceManager.ReactInstanceEventListener {
+
+  private static final String TAG = ReactContextScheduler.class.getSimpleName();
+
+  /** Picked up by Navigator.js, which requires the modules of the screens in the payload. */
+  private static final String PRELOAD_EVENT_NAME = "NativeNavigationPreloadScreens";
+
+  enum State {
+    IDLE,
+    CREATING,
+    READY,
+  }
+
+  private final Handler handler = new Handler(Looper.getMainLooper());
+
+  private final ReactInstanceManager reactInstanceManager;
+
+  /** Only touched on the main thread. */
+  private final List<Runnable> pendingAttachments = new ArrayList<>();
+
+  private final List<String> pendingPreloads = new ArrayList<>();
+
+  private volatile State state = State.IDLE;
+
+  ReactContextScheduler(ReactInstanceManager reactInstanceManager) {
+    this.reactInstanceManager = reactInstanceManager;
+    reactInstanceManager.addReactInstanceEventListener(this);
+    if (reactInstanceManager.getCurrentReactContext() != null) {
+      state = State.READY;
+    }
+  }
+
+  ReactInstanceManager getReactInstanceManager() {
+    return reactInstanceManager;
+  }
+
+  State getState() {
+    return state;
+  }
+
+  boolean isReady() {
+    return state == State.READY;
+  }
+
+  /**
+   * Starts creating the context, unless it is already being created or ready.
+   */
+  void start() {
+    if (state != State.IDLE) {
+      return;
+    }
+    state = State.CREATING;
+    NavigationTrace.event(TAG, "Creating react context");
+    reactInstanceManager.createReactContextInBackground();
+  }
+
+  /**
+   * Throws away the current context and creates a new one. Work queued from now on waits for the
+   * new context.
+   */
+  void recreate() {
+    state = State.CREATING;
+    reactInstanceManager.recreateReactContextInBackground();
+  }
+
+  /**
+   * Runs {@code attachment} right away if the context is ready, or on the main thread once it is
+   * otherwise. Creation of the context is started if needed.
+   */
+  void runWhenReady(Runnable attachment) {
+    if (state == State.READY) {
+      attachment.run();
+      return;
+    }
+    pendingAttachments.add(attachment);
+    start();
+  }
+
+  /**
+   * Forgets about an attachment passed to {@link #runWhenReady} that hasn't run yet.
+   */
+  void cancel(Runnable attachment) {
+    pendingAttachments.remove(attachment);
+  }
+
+  /**
+   * Requires the JS modules of {@code screenNames} as soon as the main thread is idle after the
+   * context is ready.
+   */
+  void preload(Collection<String> screenNames) {
+    boolean wasEmpty = pendingPreloads.isEmpty();
+    pendingPreloads.addAll(screenNames);
+    if (wasEmpty && state == State.READY) {
+      schedulePreload();
+    }
+  }
+
+  @Override
+  public void onReactContextInitialized(ReactContext context) {
+    handler.post(new Runnable() {
+      @Override
+      public void run() {
+        onReady();
+      }
+    });
+  }
+
+  private void onReady() {
+    state = State.READY;
+    if (NavigationTrace.isVerbose()) {
+      NavigationTrace.event(
+          TAG, "React context ready, " + pendingAttachments.size() + " pending attachments");
+    }
+    // Attachments may queue new ones (e.g. a reload), so work on a copy.
+    List<Runnable> attachments = new ArrayList<>(pendingAttachments);
+    pendingAttachments.clear();
+    for (Runnable attachment : attachments) {
+      attachment.run();
+    }
+    if (!pendingPreloads.isEmpty()) {
+      schedulePreload();
+    }
+  }
+
+  private void schedulePreload() {
+    Looper.myQueue().addIdleHandler(new MessageQueue.IdleHandler() {
+      @Override
+      public boolean queueIdle() {
+        ReactContext context = reactInstanceManager.getCurrentReactContext();
+        if (context == null || pendingPreloads.isEmpty()) {
+          return false;
+        }
+        WritableArray screenNames = Arguments.createArray();
+        for (String screenName : pendingPreloads) {
+          screenNames.pushString(screenName);
+        }
+        pendingPreloads.clear();
+        ReactNativeUtils.maybeEmitEvent(context, PRELOAD_EVENT_NAME, screenNames);
+        return false;
+      }
+    });
+  }
+}
@@ -0,0 +1,13 @@
+package com.airbnb.android.react.navigation;
+
+import com.facebook.react.ReactInstanceManager;
+
+/**
+ * Creates the {@link ReactInstanceManager} of a secondary JS bundle, the first time one of its
+ * screens is shown.
+ *
+ * @see ReactNavigationCoordinator#injectBundle
+ */
+public interface ReactInstanceManagerFactory {
+  ReactInstanceManager createReactInstanceManager(String bundleName);
+}
@@ -3,7 +3,6 @@ package com.airbnb.android.react.navigation;
 import android.app.Activity;
 import android.content.Intent;
 import android.os.Bundle;
-import android.util.SparseArray;
 
 import com.facebook.react.bridge.Promise;
 import com.facebook.react.bridge.ReadableMap;
@@ -18,8 +17,8 @@ import static com.airbnb.android.react.navigation.ScreenCoordinator.EXTRA_PAYLOA
 public final class ReactInterfaceManager {
   private final ReactInterface component;
   private final ReactAwareActivityFacade activity;
-  private static int puuid = 1;
-  private static final SparseArray<Promise> resultPromises = new SparseArray<>();
+  private static final PromiseRegistry resultPromises =
+      ReactNavigationCoordinator.sharedInstance.getPromiseRegistry();
 
   public ReactInterfaceManager(ReactInterface component) {
     this.component = component;
@@ -35,8 +34,8 @@ public final class ReactInterfaceManager {
    */
   static void startActivityWithPromise(final Activity activity, final Intent intent,
           Promise promise, final ReadableMap options) {
-    final int requestCode = puuid++;
-    resultPromises.put(requestCode, promise);
+    final int requestCode = resultPromises.register(
+        activity, promise, activity.getClass().getSimpleName() + " " + intent.getComponent());
     if (AndroidVersion.isAtLeastLollipop() && ReactNativeUtils.isReactNativeIntent(intent)) {
       activity.runOnUiThread(new Runnable() {
         @Override
@@ -55,7 +54,7 @@ public final class ReactInterfaceManager {
    * Needed for tests
    */
   public static int getPuuid() {
-    return puuid;
+    return resultPromises.peekNextRequestCode();
   }
 
   public void onActivityResult(int requestCode, int resultCode, Intent data) {
@@ -93,12 +92,7 @@ public final class ReactInterfaceManager {
   }
 
   private Promise getAndRemovePromise(int requestCode) {
-    if (resultPromises.indexOfKey(requestCode) < 0) {
-      return null;
-    }
-    Promise promise = resultPromises.get(requestCode);
-    resultPromises.remove(requestCode);
-    return promise;
+    return resultPromises.remove(component.getActivity(), requestCode);
   }
 
   private static Map<String, Object> getPayloadFromIntent(Intent data) {
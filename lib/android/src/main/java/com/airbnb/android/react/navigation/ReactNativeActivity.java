@@ -2,7 +2,6 @@ package com.airbnb.android.react.navigation;
 
 import android.os.Bundle;
 import android.os.Handler;
-import android.util.Log;
 
 import com.airbnb.android.R;
 import com.facebook.react.bridge.ReadableMap;
@@ -18,7 +17,7 @@ public class ReactNativeActivity extends ReactAwareActivity {
   @Override
   protected void onCreate(Bundle savedInstanceState) {
     super.onCreate(savedInstanceState);
-    Log.d(TAG, "onCreate");
+    NavigationTrace.event(TAG, "onCreate");
 
     String moduleName = getIntent().getStringExtra(ReactNativeIntents.EXTRA_MODULE_NAME);
     initialConfig = reactNavigationCoordinator.getInitialConfigForModuleName(moduleName);
@@ -4,8 +4,8 @@ import com.airbnb.android.R;
 import com.facebook.react.ReactInstanceManager;
 import com.facebook.react.ReactRootView;
 import com.facebook.react.TBReactRootView;
-import com.facebook.react.bridge.ReactContext;
 import com.facebook.react.bridge.ReadableMap;
+import com.facebook.react.bridge.WritableNativeMap;
 import com.facebook.react.devsupport.DoubleTapReloadRecognizer;
 import com.facebook.react.modules.core.PermissionListener;
 
@@ -19,20 +19,20 @@ import android.graphics.drawable.Drawable;
 import android.os.Build;
 import android.os.Bundle;
 import android.os.Handler;
+import android.os.SystemClock;
 import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
 import android.support.v4.app.Fragment;
 import android.support.v4.app.FragmentTransaction;
 import android.support.v7.app.AppCompatActivity;
 import android.support.v7.widget.Toolbar;
-import android.util.Log;
 import android.view.*;
 import android.view.animation.Animation;
 
 import java.util.Locale;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static com.airbnb.android.react.navigation.ReactNativeIntents.EXTRA_IS_DISMISS;
-import static com.airbnb.android.react.navigation.ReactNativeUtils.maybeEmitEvent;
 
 public class ReactNativeFragment extends Fragment implements ReactInterface,
     ReactNativeFragmentViewGroup.KeyListener {
@@ -53,6 +53,17 @@ public class ReactNativeFragment extends Fragment implements ReactInterface,
 
   static final String EXTRA_RECREATE_REACT_CONTEXT = "recereateNativeContext";
 
+  static final String EXTRA_SHARED_ELEMENT_SNAPSHOT = "SHARED_ELEMENT_SNAPSHOT";
+
+  /** Set instead of {@link ReactNativeIntents#EXTRA_PROPS} when the props live in the store. */
+  static final String EXTRA_PROPS_HANDLE = "REACT_PROPS_HANDLE";
+
+  /** Async trace section from a JS push or present to the first frame of the new screen. */
+  static final String TRACE_NAVIGATE = "navigate";
+
+  /** Async trace section from view creation to the first frame, by instance id. */
+  private static final String TRACE_STARTUP = "startup";
+
   private static final String TAG = ReactNativeFragment.class.getSimpleName();
 
   private static final String ON_DISAPPEAR = "onDisappear";
@@ -67,26 +78,44 @@ public class ReactNativeFragment extends Fragment implements ReactInterface,
 
   private static final int RENDER_TIMEOUT_IN_MS = 1700;
 
-  // An incrementing ID to identify each ReactNativeActivity instance (used in `instanceId`)
-  private static int UUID = 1;
+  // An incrementing ID to identify each ReactNativeActivity instance (used in `instanceId`).
+  // Ids for screens pushed from JS are generated on the native modules thread.
+  private static final AtomicInteger UUID = new AtomicInteger(1);
   // TODO(lmr): put this back down when done debugging
 
+  /** Starts the enter transition if the first render takes longer than RENDER_TIMEOUT_IN_MS. */
   private final Runnable timeoutCallback = new Runnable() {
     @Override
     public void run() {
-      Log.d(TAG, "render timeout callback called");
-      signalFirstRenderComplete();
+      NavigationTrace.event(TAG, "render timeout callback called");
+      startPostponedEnterTransition();
+    }
+  };
+
+  private final Runnable attachWithReactContext = new Runnable() {
+    @Override
+    public void run() {
+      onAttachWithReactContext();
     }
   };
 
   //  private ReactInterfaceManager activityManager;
   private final Handler handler = new Handler();
 
+
   private DoubleTapReloadRecognizer mDoubleTapReloadRecognizer = new DoubleTapReloadRecognizer();
 
   private ReactNavigationCoordinator reactNavigationCoordinator = ReactNavigationCoordinator.sharedInstance;
 
-  private ReactInstanceManager reactInstanceManager = reactNavigationCoordinator.getReactInstanceManager();
+  /** Of the bundle the screen lives in, set in {@link #onCreate}. */
+  private ReactContextScheduler contextScheduler;
+
+  private ReactInstanceManager reactInstanceManager;
+
+  private final TransitionFrameMonitor transitionFrameMonitor =
+      new TransitionFrameMonitor(reactNavigationCoordinator);
+
+  private ScreenEventBuffer eventBuffer;
 
   private String instanceId;
 
@@ -94,6 +123,17 @@ public class ReactNativeFragment extends Fragment implements ReactInterface,
 
   private boolean isWaitingForRenderToFinish = false;
 
+  private ScreenConfig screenConfig = ScreenConfig.EMPTY;
+
+  private RenderGatingPolicy renderGatingPolicy = RenderGatingPolicy.WAIT_FOR_FIRST_RENDER;
+
+  /** Startup timestamps, in {@link SystemClock#uptimeMillis()}. 0 until they happen. */
+  private long createViewTimeMs;
+
+  private long enterTransitionTimeMs;
+
+  private long firstRenderTimeMs;
+
   private ReadableMap initialConfig = ConversionUtil.EMPTY_MAP;
 
   private ReadableMap previousConfig = ConversionUtil.EMPTY_MAP;
@@ -110,6 +150,27 @@ public class ReactNativeFragment extends Fragment implements ReactInterface,
 
   private View loadingView;
 
+  @Nullable
+  private SharedElementSnapshot sharedElementSnapshot;
+
+  private boolean isWaitingForSharedElementLayout;
+
+  /**
+   * Props as they came over the bridge. They are handed to the root view as is, and only written
+   * into the arguments as a {@link Bundle} when the state has to be saved.
+   */
+  @Nullable
+  private ReadableMap bridgeProps;
+
+  /**
+   * Whether the props in the arguments were already measured and found small enough to stay there,
+   * so they don't have to be parceled again on every save.
+   */
+  private boolean arePropsInline;
+
+  /** Whether the {@link #TRACE_NAVIGATE} section started by the bridge is still open. */
+  private boolean isNavigateSectionOpen;
+
   static ReactNativeFragment newInstance(String moduleName, @Nullable Bundle props) {
     ReactNativeFragment frag = new ReactNativeFragment();
     Bundle args = new BundleBuilder()
@@ -152,6 +213,32 @@ public class ReactNativeFragment extends Fragment implements ReactInterface,
     return frag;
   }
 
+  /**
+   * Create a ReactNativeFragment instance for props received from JS. The props are kept in their
+   * native form until the fragment state needs to be saved. {@code instanceId} comes from
+   * {@link #newInstanceId(String)} and keys the {@link #TRACE_NAVIGATE} section the bridge opened,
+   * which the fragment ends.
+   */
+  static ReactNativeFragment newInstanceFromBridge(
+      String moduleName, @Nullable ReadableMap props, String instanceId) {
+    ReactNativeFragment frag = new ReactNativeFragment();
+    Bundle args = new BundleBuilder()
+        .putString(ReactNativeIntents.EXTRA_MODULE_NAME, moduleName)
+        .toBundle();
+    frag.setArguments(args);
+    frag.bridgeProps = props;
+    frag.instanceId = instanceId;
+    frag.isNavigateSectionOpen = true;
+    return frag;
+  }
+
+  /**
+   * Returns a new instance id for a screen of {@code moduleName}. Safe to call from any thread.
+   */
+  static String newInstanceId(String moduleName) {
+    return String.format(Locale.ENGLISH, "%1s_fragment_%2$d", moduleName, UUID.getAndIncrement());
+  }
+
   static ReactNativeFragment newInstance(Bundle intentExtras) {
     ReactNativeFragment frag = new ReactNativeFragment();
     frag.setArguments(intentExtras);
@@ -163,48 +250,41 @@ public class ReactNativeFragment extends Fragment implements ReactInterface,
       return;
     }
     if (!isSuccessfullyInitialized()) {
-      reactInstanceManager.createReactContextInBackground();
-
-      // TODO(lmr): need a different way of doing this
-      // TODO(lmr): move to utils
-      reactInstanceManager.addReactInstanceEventListener(
-          new ReactInstanceManager.ReactInstanceEventListener() {
-            @Override
-            public void onReactContextInitialized(ReactContext context) {
-              reactInstanceManager.removeReactInstanceEventListener(this);
-              handler.post(new Runnable() {
-                @Override
-                public void run() {
-                  onAttachWithReactContext();
-                }
-              });
-            }
-          });
+      contextScheduler.runWhenReady(attachWithReactContext);
+    } else if (renderGatingPolicy == RenderGatingPolicy.IMMEDIATE) {
+      onAttachWithReactContext();
     } else {
       onAttachWithReactContext();
       // in this case, we end up waiting for the first render to complete
       // doing the transition. If this never happens for some reason, we are going to push
       // anyway in 250ms. The handler should get canceled + called sooner though (it's za race).
       isWaitingForRenderToFinish = true;
-      handler.postDelayed(new Runnable() {
+      handler.postDelayed(timeoutCallback, RENDER_TIMEOUT_IN_MS);
+    }
+    //    activityManager = new ReactInterfaceManager(this);
+    reactNavigationCoordinator.registerComponent(
+        this, instanceId, getArguments().getString(ReactNativeIntents.EXTRA_MODULE_NAME));
+    if (renderGatingPolicy == RenderGatingPolicy.IMMEDIATE) {
+      // Posted so that a hosting activity postponing its own transition after adding us (see
+      // ReactNativeActivity) gets started as well.
+      handler.post(new Runnable() {
         @Override
         public void run() {
-          Log.d(TAG, "render timeout callback called");
           startPostponedEnterTransition();
         }
-      }, RENDER_TIMEOUT_IN_MS);
+      });
     }
-    //    activityManager = new ReactInterfaceManager(this);
-    reactNavigationCoordinator.registerComponent(this, instanceId);
   }
 
   private void onAttachWithReactContext() {
-    Log.d(TAG, "onCreateWithReactContext");
+    NavigationTrace.event(TAG, "onCreateWithReactContext");
     if (getView() == null) {
       return;
     }
 
-    emitEvent(ON_APPEAR, null);
+    if (!isHidden()) {
+      emitEvent(ON_APPEAR, null);
+    }
 
     loadingView.setVisibility(View.GONE);
 
@@ -214,25 +294,40 @@ public class ReactNativeFragment extends Fragment implements ReactInterface,
       return;
     }
     String moduleName = getArguments().getString(ReactNativeIntents.EXTRA_MODULE_NAME);
-    Bundle props = getArguments().getBundle(ReactNativeIntents.EXTRA_PROPS);
-    if (props == null) {
-      props = new Bundle();
-    }
-    props.putString(INSTANCE_ID_PROP, instanceId);
+    NavigationTrace.beginSection("ReactNativeFragment.attach");
+    try {
+      if (reactRootView == null) {
+        ViewStub reactViewStub = (ViewStub) getView().findViewById(R.id.react_root_view_stub);
+        reactRootView = (TBReactRootView) reactViewStub.inflate();
+      }
 
-    if (reactRootView == null) {
-      ViewStub reactViewStub = (ViewStub) getView().findViewById(R.id.react_root_view_stub);
-      reactRootView = (TBReactRootView) reactViewStub.inflate();
+      getImplementation().reconcileNavigationProperties(
+          this,
+          ConversionUtil.EMPTY_MAP,
+          renderedConfig,
+          true
+                                                       );
+
+      NavigationTrace.beginSection("ReactNativeFragment.startReactApplication");
+      try {
+        if (bridgeProps != null) {
+          WritableNativeMap props = ConversionUtil.toWritableNativeMap(bridgeProps);
+          props.putString(INSTANCE_ID_PROP, instanceId);
+          reactRootView.startReactApplicationWithProps(reactInstanceManager, moduleName, props);
+        } else {
+          Bundle props = getPropsFromArguments();
+          if (props == null) {
+            props = new Bundle();
+          }
+          props.putString(INSTANCE_ID_PROP, instanceId);
+          reactRootView.startReactApplication(reactInstanceManager, moduleName, props);
+        }
+      } finally {
+        NavigationTrace.endSection();
+      }
+    } finally {
+      NavigationTrace.endSection();
     }
-
-    getImplementation().reconcileNavigationProperties(
-        this,
-        ConversionUtil.EMPTY_MAP,
-        renderedConfig,
-        true
-                                                     );
-
-    reactRootView.startReactApplication(reactInstanceManager, moduleName, props);
   }
 
   @Override
@@ -256,22 +351,30 @@ public class ReactNativeFragment extends Fragment implements ReactInterface,
       // React Native will flush the UI cache as soon as we unmount it. This will cause the view to
       // disappear unless we delay it until after the fragment animation.
       if (transit == FragmentTransaction.TRANSIT_NONE && nextAnim == 0) {
-        reactRootView.unmountReactApplication();
+        reactNavigationCoordinator.getUnmountScheduler().schedule(reactRootView);
       } else {
         contentContainer.unmountReactApplicationAfterAnimation(reactRootView);
       }
       reactRootView = null;
     }
+    Animation animation = null;
     if (getActivity() instanceof ScreenCoordinatorComponent) {
       ScreenCoordinator screenCoordinator =
           ((ScreenCoordinatorComponent) getActivity()).getScreenCoordinator();
       if (screenCoordinator != null) {
         // In some cases such as TabConfig, the screen may be loaded before there is a screen
         // coordinator but it doesn't live inside of any back stack and isn't visible.
-        return screenCoordinator.onCreateAnimation(transit, enter, nextAnim);
+        animation = screenCoordinator.onCreateAnimation(this, transit, enter, nextAnim);
       }
     }
-    return null;
+    if (animation != null && contentContainer != null) {
+      animation.setAnimationListener(new TransitionAnimationListener(contentContainer, enter));
+    }
+    return animation;
+  }
+
+  private boolean isHardwareLayerTransitionEnabled() {
+    return screenConfig.hardwareLayerTransitions;
   }
 
   @Override
@@ -283,21 +386,48 @@ public class ReactNativeFragment extends Fragment implements ReactInterface,
 
     if (instanceId == null) {
       if (savedInstanceState == null) {
-        String moduleName = getArguments().getString(ReactNativeIntents.EXTRA_MODULE_NAME);
-        instanceId = String.format(Locale.ENGLISH, "%1s_fragment_%2$d", moduleName, UUID++);
+        instanceId = newInstanceId(getArguments().getString(ReactNativeIntents.EXTRA_MODULE_NAME));
       } else {
         instanceId = savedInstanceState.getString(INSTANCE_ID_PROP);
       }
     }
 
+    contextScheduler = reactNavigationCoordinator.getContextScheduler(
+        getArguments().getString(ReactNativeIntents.EXTRA_MODULE_NAME));
+    reactInstanceManager = contextScheduler.getReactInstanceManager();
+    eventBuffer =
+        new ScreenEventBuffer(reactNavigationCoordinator.getScreenEventChannel(), instanceId);
+    sharedElementSnapshot = getArguments().getParcelable(EXTRA_SHARED_ELEMENT_SNAPSHOT);
+
     setHasOptionsMenu(true);
-    Log.d(TAG, "onCreate");
+    NavigationTrace.event(TAG, "onCreate");
   }
 
   @Override
   public View onCreateView(LayoutInflater inflater, ViewGroup container,
       Bundle savedInstanceState) {
-    postponeEnterTransition();
+    NavigationTrace.beginSection("ReactNativeFragment.onCreateView");
+    try {
+      return createView(inflater, container);
+    } finally {
+      NavigationTrace.endSection();
+    }
+  }
+
+  private View createView(LayoutInflater inflater, ViewGroup container) {
+    NavigationTrace.beginAsyncSection(TRACE_STARTUP, instanceId);
+    createViewTimeMs = SystemClock.uptimeMillis();
+    enterTransitionTimeMs = 0;
+    firstRenderTimeMs = 0;
+    String moduleName = getArguments().getString(EXTRA_REACT_MODULE_NAME);
+    screenConfig = reactNavigationCoordinator.getScreenConfig(moduleName);
+    renderGatingPolicy = RenderGatingPolicy.of(screenConfig, sharedElementSnapshot);
+    if (renderGatingPolicy != RenderGatingPolicy.IMMEDIATE) {
+      postponeEnterTransition();
+    }
+    if (sharedElementSnapshot != null && ViewUtils.isAtLeastLollipop()) {
+      setEnterSharedElementCallback(new SnapshotSharedElementCallback(sharedElementSnapshot));
+    }
     View v = inflater.inflate(R.layout.fragment_react_native, container, false);
 
     if (getArguments().getBoolean(EXTRA_SHOW_TOOLBAR)) {
@@ -325,15 +455,14 @@ public class ReactNativeFragment extends Fragment implements ReactInterface,
     contentContainer.setKeyListener(this);
     activity = (AppCompatActivity) getActivity();
 
-    String moduleName = getArguments().getString(EXTRA_REACT_MODULE_NAME);
-    Log.d(TAG, "onCreateView " + moduleName);
+    NavigationTrace.event(TAG, "onCreateView", moduleName);
 
-    initialConfig = reactNavigationCoordinator.getInitialConfigForModuleName(moduleName);
+    initialConfig = screenConfig.initialConfig;
     // for reconciliation, we save this in "renderedConfig" until the real one comes down
     renderedConfig = initialConfig;
 
-    if (initialConfig.hasKey("screenColor")) {
-      int backgroundColor = initialConfig.getInt("screenColor");
+    if (screenConfig.hasScreenColor) {
+      int backgroundColor = screenConfig.screenColor;
       // TODO(lmr): do we need to create a style for this?...
       //        if (backgroundColor == Color.TRANSPARENT) {
       //            // This needs to happen before setContentView gets called
@@ -347,32 +476,109 @@ public class ReactNativeFragment extends Fragment implements ReactInterface,
   @Override
   public void onActivityCreated(Bundle savedInstanceState) {
     super.onActivityCreated(savedInstanceState);
-    Log.d(TAG, "onActivityCreated");
+    NavigationTrace.event(TAG, "onActivityCreated");
     initReactNative();
   }
 
   @Override
   public void onResume() {
     super.onResume();
-    Log.d(TAG, "onResume");
+    NavigationTrace.event(TAG, "onResume");
   }
 
   @Override
   public void onSaveInstanceState(Bundle outState) {
     outState.putString(INSTANCE_ID_PROP, instanceId);
+    if (bridgeProps != null && !getArguments().containsKey(ReactNativeIntents.EXTRA_PROPS)
+        && !getArguments().containsKey(EXTRA_PROPS_HANDLE)) {
+      // The arguments are written after this, so this is the last moment to make the props
+      // survive the process.
+      getArguments()
+          .putBundle(ReactNativeIntents.EXTRA_PROPS, ConversionUtil.toBundle(bridgeProps));
+    }
+    movePropsToStoreIfLarge();
+  }
+
+  /**
+   * Large props are kept out of the arguments, which are parceled on every save and have to fit
+   * in the binder transaction limit along with the rest of the activity state.
+   */
+  private void movePropsToStoreIfLarge() {
+    Bundle args = getArguments();
+    Bundle props = args.getBundle(ReactNativeIntents.EXTRA_PROPS);
+    if (props == null || arePropsInline) {
+      return;
+    }
+    int size = FragmentPropsStore.parcelSize(props);
+    if (size <= FragmentPropsStore.MAX_INLINE_BYTES) {
+      arePropsInline = true;
+      return;
+    }
+    String handle = reactNavigationCoordinator.getPropsStore().put(getContext(), props);
+    args.remove(ReactNativeIntents.EXTRA_PROPS);
+    args.putString(EXTRA_PROPS_HANDLE, handle);
+    if (NavigationTrace.isVerbose()) {
+      NavigationTrace.event(TAG, "Moved " + size + "B of props to the store for " + instanceId);
+    }
+  }
+
+  @Nullable
+  private Bundle getPropsFromArguments() {
+    Bundle args = getArguments();
+    String handle = args.getString(EXTRA_PROPS_HANDLE);
+    if (handle == null) {
+      return args.getBundle(ReactNativeIntents.EXTRA_PROPS);
+    }
+    return reactNavigationCoordinator.getPropsStore().get(getContext(), handle);
+  }
+
+  @Override
+  public void onDestroy() {
+    super.onDestroy();
+    // The exit animation is over by now. The fragment manager may have replaced our animation
+    // listener though, so make sure the transition is reported before the record goes away.
+    transitionFrameMonitor.stop();
+    reactNavigationCoordinator.unregisterComponent(instanceId);
+    String handle = getArguments().getString(EXTRA_PROPS_HANDLE);
+    if (handle != null && (isRemoving() || getActivity().isFinishing())) {
+      reactNavigationCoordinator.getPropsStore().remove(handle);
+    }
   }
 
   @Override
   public void onPause() {
     super.onPause();
-    emitEvent(ON_DISAPPEAR, null);
+    if (!isHidden()) {
+      emitEvent(ON_DISAPPEAR, null);
+    }
+  }
+
+  @Override
+  public void onHiddenChanged(boolean hidden) {
+    super.onHiddenChanged(hidden);
+    // Prefetched tabs are mounted while hidden, they only appear once shown.
+    if (reactRootView != null) {
+      emitEvent(hidden ? ON_DISAPPEAR : ON_APPEAR, null);
+    }
   }
 
   @Override
   public void onDestroyView() {
-    Log.d(TAG, "onDestroyView");
+    NavigationTrace.event(TAG, "onDestroyView");
     super.onDestroyView();
-    reactNavigationCoordinator.unregisterComponent(instanceId);
+    if (firstRenderTimeMs == 0) {
+      NavigationTrace.endAsyncSection(TRACE_STARTUP, instanceId);
+    }
+    if (isNavigateSectionOpen) {
+      // Gone before its first render was drawn.
+      isNavigateSectionOpen = false;
+      NavigationTrace.endAsyncSection(TRACE_NAVIGATE, instanceId);
+    }
+    contextScheduler.cancel(attachWithReactContext);
+    contentContainer.onTransitionEnd();
+    // The JS side of this screen is unmounted with the view, it will subscribe again once it
+    // renders in the new view.
+    eventBuffer.onScreenGone();
 
     // We are going out of the react native context. Let the activity decide the orientation
     getActivity().setRequestedOrientation(ActivityInfo.SCREEN_ORIENTATION_UNSPECIFIED);
@@ -386,17 +592,26 @@ public class ReactNativeFragment extends Fragment implements ReactInterface,
   @Override
   public void postponeEnterTransition() {
     super.postponeEnterTransition();
-    Log.d(TAG, "postponeEnterTransition");
+    NavigationTrace.event(TAG, "postponeEnterTransition");
     getActivity().supportPostponeEnterTransition();
   }
 
   @Override
   public void startPostponedEnterTransition() {
     super.startPostponedEnterTransition();
-    Log.d(TAG, "startPostponeEnterTransition");
+    NavigationTrace.event(TAG, "startPostponeEnterTransition");
+    if (enterTransitionTimeMs == 0 && createViewTimeMs != 0) {
+      enterTransitionTimeMs = SystemClock.uptimeMillis();
+    }
     if (getActivity() != null) {
       getActivity().supportStartPostponedEnterTransition();
     }
+    if (sharedElementSnapshot != null) {
+      // The enter callback keeps its own reference, we don't want to carry the bitmaps around
+      // with the arguments any longer.
+      sharedElementSnapshot = null;
+      getArguments().remove(EXTRA_SHARED_ELEMENT_SNAPSHOT);
+    }
   }
 
   @Override
@@ -440,18 +655,76 @@ public class ReactNativeFragment extends Fragment implements ReactInterface,
 
   @Override
   public void signalFirstRenderComplete() {
-    Log.d(TAG, "signalFirstRenderComplete");
+    NavigationTrace.event(TAG, "signalFirstRenderComplete");
+    eventBuffer.onScreenReady(reactInstanceManager.getCurrentReactContext());
     startPostponedEnterTransition();
+    if (firstRenderTimeMs == 0 && createViewTimeMs != 0) {
+      firstRenderTimeMs = SystemClock.uptimeMillis();
+      reportStartup();
+      if (NavigationTrace.isEnabled()) {
+        endTraceSectionsOnNextFrame();
+      }
+    }
+  }
+
+  private void endTraceSectionsOnNextFrame() {
+    final boolean endNavigateSection = isNavigateSectionOpen;
+    isNavigateSectionOpen = false;
+    Choreographer.getInstance().postFrameCallback(new Choreographer.FrameCallback() {
+      @Override
+      public void doFrame(long frameTimeNanos) {
+        NavigationTrace.endAsyncSection(TRACE_STARTUP, instanceId);
+        if (endNavigateSection) {
+          NavigationTrace.endAsyncSection(TRACE_NAVIGATE, instanceId);
+        }
+      }
+    });
+  }
+
+  private void reportStartup() {
+    long enterDelayMs = enterTransitionTimeMs - createViewTimeMs;
+    long firstRenderMs = firstRenderTimeMs - createViewTimeMs;
+    // Time the enter transition would have been held back had it waited for the render.
+    long savedMs = Math.max(0, firstRenderTimeMs - enterTransitionTimeMs);
+    if (NavigationTrace.isVerbose()) {
+      NavigationTrace.event(TAG, instanceId + " " + renderGatingPolicy + ": enter after "
+          + enterDelayMs + "ms, first render after " + firstRenderMs + "ms, saved " + savedMs
+          + "ms");
+    }
+    reactNavigationCoordinator.onScreenStarted(instanceId, enterDelayMs, firstRenderMs);
   }
 
   @Override
   public void notifySharedElementAddition() {
-    Log.d(TAG, "notifySharedElementAddition");
+    NavigationTrace.event(TAG, "notifySharedElementAddition");
+    if (isWaitingForSharedElementLayout) {
+      return;
+    }
+    if (renderGatingPolicy == RenderGatingPolicy.WAIT_FOR_SHARED_ELEMENTS
+        && sharedElementSnapshot != null && getView() != null
+        && sharedElementSnapshot.isMatchedBy(getView())) {
+      // Every element the previous screen handed over has a target now. The geometry of the
+      // start state is already known, so start as soon as the targets are laid out instead of
+      // waiting for the whole screen to render.
+      handler.removeCallbacks(timeoutCallback);
+      isWaitingForSharedElementLayout = true;
+      final View view = getView();
+      view.getViewTreeObserver().addOnPreDrawListener(new ViewTreeObserver.OnPreDrawListener() {
+        @Override
+        public boolean onPreDraw() {
+          view.getViewTreeObserver().removeOnPreDrawListener(this);
+          isWaitingForSharedElementLayout = false;
+          startPostponedEnterTransition();
+          return true;
+        }
+      });
+      return;
+    }
     if (isWaitingForRenderToFinish && !ReactNativeUtils.isSharedElementTransition(getActivity())) {
       // if we are receiving a sharedElement and we have postponed the enter transition,
       // we want to cancel any existing handler and create a new one.
       // This is effectively debouncing the call.
-      handler.removeCallbacksAndMessages(timeoutCallback);
+      handler.removeCallbacks(timeoutCallback);
       handler.post(new Runnable() {
         @Override
         public void run() {
@@ -462,11 +735,7 @@ public class ReactNativeFragment extends Fragment implements ReactInterface,
   }
 
   public void emitEvent(String eventName, Object object) {
-    if (isSuccessfullyInitialized()) {
-      String key =
-          String.format(Locale.ENGLISH, "NativeNavigationScreen.%s.%s", eventName, instanceId);
-      maybeEmitEvent(reactInstanceManager.getCurrentReactContext(), key, object);
-    }
+    eventBuffer.emit(reactInstanceManager.getCurrentReactContext(), eventName, object);
   }
 
   @Override
@@ -484,7 +753,7 @@ public class ReactNativeFragment extends Fragment implements ReactInterface,
   }
 
   private boolean isSuccessfullyInitialized() {
-    return reactNavigationCoordinator.isSuccessfullyInitialized();
+    return contextScheduler.isReady();
   }
 
   private NavigationImplementation getImplementation() {
@@ -506,11 +775,61 @@ public class ReactNativeFragment extends Fragment implements ReactInterface,
     requestPermissions(permissions, requestCode);
   }
 
+  /**
+   * Replaces the props of this screen. They're kept in the arguments too, so that the screen is
+   * started (or restored) with them if its root view doesn't exist yet.
+   */
   public void setAppProperties(Bundle bundle) {
-    reactRootView.setAppProperties(bundle);
+    Bundle args = getArguments();
+    String handle = args.getString(EXTRA_PROPS_HANDLE);
+    if (handle != null) {
+      args.remove(EXTRA_PROPS_HANDLE);
+      reactNavigationCoordinator.getPropsStore().remove(handle);
+    }
+    args.putBundle(ReactNativeIntents.EXTRA_PROPS, bundle);
+    arePropsInline = false;
+    bridgeProps = null;
+    if (reactRootView != null) {
+      Bundle props = new Bundle(bundle);
+      props.putString(INSTANCE_ID_PROP, instanceId);
+      reactRootView.setAppProperties(props);
+    }
   }
 
   public void reloadReactContainer() {
-    reactInstanceManager.recreateReactContextInBackground();
+    // Root views still waiting to be unmounted would otherwise get attached to the new context.
+    reactNavigationCoordinator.getUnmountScheduler().flush();
+    contextScheduler.recreate();
+  }
+
+  /**
+   * Keeps the content container on a hardware layer and tracks frame timing while a fragment
+   * animation is running.
+   */
+  private final class TransitionAnimationListener implements Animation.AnimationListener {
+    private final ReactNativeFragmentViewGroup container;
+    private final boolean enter;
+
+    TransitionAnimationListener(ReactNativeFragmentViewGroup container, boolean enter) {
+      this.container = container;
+      this.enter = enter;
+    }
+
+    @Override
+    public void onAnimationStart(Animation animation) {
+      boolean useHardwareLayer = isHardwareLayerTransitionEnabled();
+      container.onTransitionStart(useHardwareLayer);
+      transitionFrameMonitor.start(instanceId, enter, useHardwareLayer);
+    }
+
+    @Override
+    public void onAnimationEnd(Animation animation) {
+      transitionFrameMonitor.stop();
+      container.onTransitionEnd();
+    }
+
+    @Override
+    public void onAnimationRepeat(Animation animation) {
+    }
   }
 }
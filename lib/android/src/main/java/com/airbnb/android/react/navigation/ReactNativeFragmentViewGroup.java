@@ -2,6 +2,7 @@ package com.airbnb.android.react.navigation;
 
 import android.content.Context;
 import android.support.annotation.Nullable;
+import android.support.v4.view.ViewCompat;
 import android.util.AttributeSet;
 import android.view.KeyEvent;
 import android.widget.FrameLayout;
@@ -19,6 +20,8 @@ public class ReactNativeFragmentViewGroup extends FrameLayout {
 
   @Nullable private ReactRootView reactRootView;
   @Nullable private KeyListener keyListener;
+  private int layerTypeBeforeTransition = LAYER_TYPE_NONE;
+  private boolean isOnTransitionLayer;
 
   public ReactNativeFragmentViewGroup(Context context) {
     super(context);
@@ -49,12 +52,36 @@ public class ReactNativeFragmentViewGroup extends FrameLayout {
     this.reactRootView = reactRootView;
   }
 
-  @Override
-  protected void onAnimationEnd() {
-    super.onAnimationEnd();
+  /**
+   * Moves this container onto a hardware layer for the duration of a fragment animation, so the
+   * React hierarchy is rendered once into the layer and only composited while it moves.
+   */
+  void onTransitionStart(boolean useHardwareLayer) {
+    if (!useHardwareLayer || isOnTransitionLayer) {
+      return;
+    }
+    isOnTransitionLayer = true;
+    layerTypeBeforeTransition = getLayerType();
+    setLayerType(LAYER_TYPE_HARDWARE, null);
+    if (ViewCompat.isAttachedToWindow(this)) {
+      buildLayer();
+    }
+  }
+
+  void onTransitionEnd() {
+    if (isOnTransitionLayer) {
+      isOnTransitionLayer = false;
+      setLayerType(layerTypeBeforeTransition, null);
+    }
     if (reactRootView != null) {
-      reactRootView.unmountReactApplication();
+      ReactNavigationCoordinator.sharedInstance.getUnmountScheduler().schedule(reactRootView);
       reactRootView = null;
     }
   }
+
+  @Override
+  protected void onAnimationEnd() {
+    super.onAnimationEnd();
+    onTransitionEnd();
+  }
 }
@@ -1,12 +1,17 @@
 package com.airbnb.android.react.navigation;
 
+import android.app.ActivityManager;
+import android.content.Context;
 import android.os.Bundle;
+import android.os.Looper;
+import android.os.MessageQueue;
 import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
 import android.support.design.widget.BottomNavigationView;
+import android.support.v4.app.ActivityManagerCompat;
 import android.support.v4.app.Fragment;
+import android.support.v4.app.FragmentTransaction;
 import android.support.v4.util.ArrayMap;
-import android.util.Log;
 import android.view.Menu;
 import android.view.MenuItem;
 import android.view.View;
@@ -14,21 +19,30 @@ import android.view.ViewGroup;
 import android.view.ViewTreeObserver;
 
 import com.airbnb.android.R;
+import com.facebook.react.bridge.ReactContext;
 import com.facebook.react.bridge.ReadableMap;
+import com.facebook.react.uimanager.NativeViewHierarchyManager;
+import com.facebook.react.uimanager.UIBlock;
+import com.facebook.react.uimanager.UIManagerModule;
+import com.facebook.react.uimanager.UIManagerModuleListener;
 
+import java.util.Collections;
+import java.util.Iterator;
 import java.util.Map;
 import java.util.Stack;
 
 public class ReactNativeTabActivity extends ReactAwareActivity
         implements ScreenCoordinatorComponent, BottomNavigationView.OnNavigationItemSelectedListener {
   private static final String TAG = ReactNativeTabActivity.class.getSimpleName();
+  private static final String TAB_CONFIG_SCREEN = "TabScreen";
+  private static final String PREFETCH_TAG_PREFIX = "prefetched_tab_";
 
   private ViewGroup.OnHierarchyChangeListener reactViewChangeListener = new ViewGroup.OnHierarchyChangeListener() {
     @Override
     public void onChildViewAdded(View parent, View child) {
-      Log.d(TAG, "onChildViewAdded");
+      NavigationTrace.event(TAG, "onChildViewAdded");
       if (child instanceof ViewGroup) {
-        Log.d(TAG, "onChildViewAdded: adding child listener");
+        NavigationTrace.event(TAG, "onChildViewAdded: adding child listener");
         // onChildViewAdded is a shallow listener, so we want to recursively listen
         // to all children that are ViewGroups as well. For a tab scene, the view
         // hierarchy should not be very deep, so this seems okay to me. We should be
@@ -40,7 +54,7 @@ public class ReactNativeTabActivity extends ReactAwareActivity
 
     @Override
     public void onChildViewRemoved(View parent, View child) {
-      Log.d(TAG, "onChildViewRemoved");
+      NavigationTrace.event(TAG, "onChildViewRemoved");
       // TODO(lmr): is there any reason we would need to clean up the onHierarchyChangeListener here?
       debouncedRefreshTabs();
     }
@@ -53,6 +67,43 @@ public class ReactNativeTabActivity extends ReactAwareActivity
   private Map<Integer, TabView> tabViews = new ArrayMap<>();
   private ReadableMap prevTabBarConfig = ConversionUtil.EMPTY_MAP;
   private ReadableMap renderedTabBarConfig = ConversionUtil.EMPTY_MAP;
+  /** Number of times the tabs were rebuilt. */
+  private int tabRefreshCount;
+  /** The context whose UI manager {@link #batchListener} is registered with. */
+  @Nullable private ReactContext batchListenerContext;
+
+  private final UIManagerModuleListener batchListener = new UIManagerModuleListener() {
+    @Override
+    public void willDispatchViewUpdates(UIManagerModule uiManager) {
+      // Called on the native modules thread for every batch. The block runs on the main thread
+      // after all of the batch's view updates, however many React commits they came from.
+      uiManager.addUIBlock(refreshTabsBlock);
+    }
+  };
+
+  /** Root fragments that have been prefetched, by tab id. */
+  private final Map<Integer, Fragment> prefetchedTabs = new ArrayMap<>();
+  private boolean isPrefetchScheduled;
+  /** Set under memory pressure; prefetching doesn't resume for the life of this activity. */
+  private boolean isPrefetchDisabled;
+
+  private final MessageQueue.IdleHandler tabPrefetcher = new MessageQueue.IdleHandler() {
+    @Override
+    public boolean queueIdle() {
+      isPrefetchScheduled = prefetchNextTab();
+      return isPrefetchScheduled;
+    }
+  };
+
+  private final UIBlock refreshTabsBlock = new UIBlock() {
+    @Override
+    public void execute(NativeViewHierarchyManager nativeViewHierarchyManager) {
+      if (tabViewsIsDirty) {
+        tabViewsIsDirty = false;
+        refreshTabs();
+      }
+    }
+  };
 
   @Override
   protected void onCreate(@Nullable Bundle savedInstanceState) {
@@ -64,11 +115,47 @@ public class ReactNativeTabActivity extends ReactAwareActivity
     tabConfigContainer.setOnHierarchyChangeListener(reactViewChangeListener);
     ScreenCoordinatorLayout container = (ScreenCoordinatorLayout) findViewById(R.id.content);
     tabCoordinator = new TabCoordinator(this, container, savedInstanceState);
+    isPrefetchDisabled = ActivityManagerCompat.isLowRamDevice(
+        (ActivityManager) getSystemService(Context.ACTIVITY_SERVICE));
+
+    ReactNativeFragment tabConfigFragment =
+        ReactNativeFragment.newInstance(TAB_CONFIG_SCREEN, null);
+    FragmentTransaction ft = getSupportFragmentManager().beginTransaction()
+            .add(R.id.tab_config_container, tabConfigFragment);
+    if (savedInstanceState != null) {
+      // Tabs are set up again from JS, the fragments they prefetched would never be shown.
+      for (Fragment fragment : getSupportFragmentManager().getFragments()) {
+        if (fragment != null && fragment.getTag() != null
+            && fragment.getTag().startsWith(PREFETCH_TAG_PREFIX)) {
+          ft.remove(fragment);
+        }
+      }
+    }
+    ft.commitNow();
+  }
+
+  @Override
+  protected void onDestroy() {
+    isPrefetchDisabled = true;
+    cancelScheduledPrefetch();
+    setBatchListenerContext(null);
+    super.onDestroy();
+  }
+
+  @Override
+  public void onTrimMemory(int level) {
+    super.onTrimMemory(level);
+    // TRIM_MEMORY_UI_HIDDEN only means the app was backgrounded, it isn't memory pressure.
+    if (level == TRIM_MEMORY_RUNNING_LOW || level == TRIM_MEMORY_RUNNING_CRITICAL
+        || level >= TRIM_MEMORY_BACKGROUND) {
+      stopPrefetchingTabs();
+    }
+  }
 
-    ReactNativeFragment tabConfigFragment = ReactNativeFragment.newInstance("TabScreen", null);
-    getSupportFragmentManager().beginTransaction()
-            .add(R.id.tab_config_container, tabConfigFragment)
-            .commitNow();
+  @Override
+  public void onLowMemory() {
+    super.onLowMemory();
+    stopPrefetchingTabs();
   }
 
   @Override
@@ -76,6 +163,10 @@ public class ReactNativeTabActivity extends ReactAwareActivity
     return tabCoordinator.getCurrentScreenCoordinator();
   }
 
+  TabCoordinator getTabCoordinator() {
+    return tabCoordinator;
+  }
+
   @Override
   public void onBackPressed() {
     if (!tabCoordinator.onBackPressed()) {
@@ -83,26 +174,75 @@ public class ReactNativeTabActivity extends ReactAwareActivity
     }
   }
 
+  /**
+   * Number of times the tabs were rebuilt since this activity was created.
+   */
+  public int getTabRefreshCount() {
+    return tabRefreshCount;
+  }
+
   private void debouncedRefreshTabs() {
     if (tabViewsIsDirty) {
       return;
     }
     tabViewsIsDirty = true;
+    ReactContext context = reactNavigationCoordinator.getReactInstanceManager(TAB_CONFIG_SCREEN)
+        .getCurrentReactContext();
+    if (context != null && context == batchListenerContext) {
+      // Refreshed once the current batch has been applied, see refreshTabsBlock.
+      return;
+    }
+    // The batch being applied was dispatched before we could listen to it (first render or a
+    // reload), so refresh on the next pre-draw this time.
+    setBatchListenerContext(context);
     tabConfigContainer.getViewTreeObserver().addOnPreDrawListener(new ViewTreeObserver.OnPreDrawListener() {
       @Override
       public boolean onPreDraw() {
-        tabViewsIsDirty = false;
         tabConfigContainer.getViewTreeObserver().removeOnPreDrawListener(this);
-        refreshTabs();
+        if (tabViewsIsDirty) {
+          tabViewsIsDirty = false;
+          refreshTabs();
+        }
         return true;
       }
     });
   }
 
+  private void setBatchListenerContext(@Nullable final ReactContext context) {
+    final ReactContext previous = batchListenerContext;
+    if (previous == context) {
+      return;
+    }
+    batchListenerContext = context;
+    // The UI manager reads its listeners on the native modules thread.
+    if (previous != null && previous.hasActiveCatalystInstance()) {
+      previous.runOnNativeModulesQueueThread(new Runnable() {
+        @Override
+        public void run() {
+          previous.getNativeModule(UIManagerModule.class).removeUIManagerListener(batchListener);
+        }
+      });
+    }
+    if (context != null) {
+      context.runOnNativeModulesQueueThread(new Runnable() {
+        @Override
+        public void run() {
+          context.getNativeModule(UIManagerModule.class).addUIManagerListener(batchListener);
+        }
+      });
+    }
+  }
+
   private void refreshTabs() {
-    Log.d(TAG, "refreshTabs");
-    traverseTabs();
-    notifyTabsHaveChanged();
+    tabRefreshCount++;
+    NavigationTrace.event(TAG, "refreshTabs", tabRefreshCount);
+    NavigationTrace.beginSection("ReactNativeTabActivity.refreshTabs");
+    try {
+      traverseTabs();
+      notifyTabsHaveChanged();
+    } finally {
+      NavigationTrace.endSection();
+    }
   }
 
   private void traverseTabs() {
@@ -133,7 +273,7 @@ public class ReactNativeTabActivity extends ReactAwareActivity
   }
 
   private void notifyTabsHaveChanged() {
-    Log.d(TAG, "notifyTabsHaveChanged");
+    NavigationTrace.event(TAG, "notifyTabsHaveChanged");
     Menu menu = bottomNavigationView.getMenu();
 
     getImplementation().reconcileTabBarProperties(
@@ -158,18 +298,118 @@ public class ReactNativeTabActivity extends ReactAwareActivity
       index++;
     }
 
-    if (tabViews.size() > 0) {
+    Integer selectedTabId = tabCoordinator.getCurrentTabId();
+    if (selectedTabId != null && tabViews.containsKey(selectedTabId)) {
+      // Rebuilding the menu checks its first item, so check the selected tab again.
+      menu.findItem(selectedTabId).setChecked(true);
+    } else if (tabViews.size() > 0) {
+      // Nothing was selected yet, or the selected tab is gone.
       TabView view = tabViews.values().iterator().next();
       tabCoordinator.showTab(view.getFragment(), view.getId());
     }
+    releasePrefetchedTabs(false);
+    schedulePrefetch();
+  }
+
+  /**
+   * Once the main thread is idle, prefetches the tabs that aren't shown yet, one tab per idle pass:
+   * the root fragment of the tab is added to the container hidden, so that its view is inflated and
+   * its React app mounted before the tab is first selected. Selecting it then only shows the
+   * fragment (see {@link ScreenCoordinator#presentScreen}). Tabs whose screen belongs to a bundle
+   * that isn't running yet are skipped, prefetching doesn't start bundles.
+   */
+  private void schedulePrefetch() {
+    if (isPrefetchScheduled || isPrefetchDisabled) {
+      return;
+    }
+    isPrefetchScheduled = true;
+    Looper.myQueue().addIdleHandler(tabPrefetcher);
+  }
+
+  /**
+   * Prefetches the next tab, returning whether there may be more to do.
+   */
+  private boolean prefetchNextTab() {
+    if (isPrefetchDisabled || isFinishing()) {
+      return false;
+    }
+    Integer selectedTabId = tabCoordinator.getCurrentTabId();
+    for (TabView tab : tabViews.values()) {
+      int id = tab.getId();
+      if ((selectedTabId != null && id == selectedTabId) || prefetchedTabs.containsKey(id)
+          || !reactNavigationCoordinator.isBundleRunning(tab.getRoute())) {
+        continue;
+      }
+      NavigationTrace.event(TAG, "prefetchTab", tab.getRoute());
+      reactNavigationCoordinator.preloadScreens(Collections.singletonList(tab.getRoute()));
+      Fragment fragment = tab.getFragment();
+      prefetchedTabs.put(id, fragment);
+      if (!fragment.isAdded()) {
+        // Committed now so that a tap right after sees the fragment as added. Losing a prefetch to
+        // a state save is harmless, the tab is created on selection then.
+        getSupportFragmentManager().beginTransaction()
+                .add(R.id.content, fragment, PREFETCH_TAG_PREFIX + id)
+                .hide(fragment)
+                .commitNowAllowingStateLoss();
+      }
+      return true;
+    }
+    return false;
+  }
+
+  /**
+   * Stops prefetching and removes the prefetched fragments that aren't shown, unmounting their
+   * React apps. Tabs are created on selection again after this.
+   */
+  private void stopPrefetchingTabs() {
+    isPrefetchDisabled = true;
+    cancelScheduledPrefetch();
+    releasePrefetchedTabs(true);
+  }
+
+  /**
+   * Removes the hidden prefetched fragments of every tab if {@code all}, otherwise only those of
+   * tabs that are gone from the tab bar.
+   */
+  private void releasePrefetchedTabs(boolean all) {
+    FragmentTransaction ft = null;
+    Iterator<Map.Entry<Integer, Fragment>> iterator = prefetchedTabs.entrySet().iterator();
+    while (iterator.hasNext()) {
+      Map.Entry<Integer, Fragment> entry = iterator.next();
+      TabView tab = tabViews.get(entry.getKey());
+      Fragment fragment = entry.getValue();
+      if (!all && tab != null && tab.peekFragment() == fragment) {
+        continue;
+      }
+      if (!fragment.isAdded()) {
+        iterator.remove();
+      } else if (fragment.isHidden()) {
+        iterator.remove();
+        if (ft == null) {
+          ft = getSupportFragmentManager().beginTransaction();
+        }
+        ft.remove(fragment);
+      }
+      // A fragment that is shown right now is kept, and released once it's hidden again.
+    }
+    if (ft != null) {
+      ft.commitNowAllowingStateLoss();
+    }
+  }
+
+  private void cancelScheduledPrefetch() {
+    if (isPrefetchScheduled) {
+      isPrefetchScheduled = false;
+      Looper.myQueue().removeIdleHandler(tabPrefetcher);
+    }
   }
 
   @Override
   public boolean onNavigationItemSelected(@NonNull MenuItem item) {
-    Log.d(TAG, "onNavigationItemSelected");
+    NavigationTrace.event(TAG, "onNavigationItemSelected");
     TabView tab = tabViews.get(item.getItemId());
     if (tab != null) {
-      Log.d(TAG, "found tab");
+      NavigationTrace.event(TAG, "found tab");
       Fragment fragment = tab.getFragment();
       tabCoordinator.showTab(fragment, item.getItemId());
     }
@@ -72,8 +72,8 @@ public final class ReactNativeUtils {
         context.getJSModule(RCTDeviceEventEmitter.class).emit(name, data);
       } catch (RuntimeException e) {
         // the JS bundle hasn't finished executing, so this call is going to be lost.
-        // In the future, we could maybe set something up to queue the call, and then pass them through once
-        // the bundle has finished getting parsed, but for now I am going to just swallow the error.
+        // Screen events are held in a ScreenEventBuffer until the screen rendered, so this should
+        // only happen for events emitted outside of a screen.
       }
     }
   }
@@ -10,22 +10,35 @@ import android.os.Looper;
 import android.provider.Settings;
 import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
+import android.util.Log;
 import android.widget.Toast;
 import com.facebook.react.ReactInstanceManager;
 import com.facebook.react.bridge.ReactContext;
 import com.facebook.react.bridge.ReadableMap;
 import java.lang.ref.WeakReference;
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import rodo.Rodo;
 
 public class ReactNavigationCoordinator {
+  private static final String TAG = ReactNavigationCoordinator.class.getSimpleName();
   public static ReactNavigationCoordinator sharedInstance = new ReactNavigationCoordinator();
 
+  /** The bundle of the injected {@link ReactInstanceManager}, and of any screen not mapped. */
+  public static final String MAIN_BUNDLE = "main";
+
   private ReactInstanceManager reactInstanceManager;
   private NavigationImplementation navigationImplementation = new DefaultNavigationImplementation();
-  private boolean isSuccessfullyInitialized = false;
+  @Nullable private TransitionMetricsListener transitionMetricsListener;
+  private final DeferredUnmountScheduler unmountScheduler = new DeferredUnmountScheduler();
+  private final ScreenEventChannel screenEventChannel = new ScreenEventChannel();
+  private final FragmentPropsStore propsStore = new FragmentPropsStore();
+  private final PromiseRegistry promiseRegistry = new PromiseRegistry();
+  private final NavigationStateChannel navigationStateChannel = new NavigationStateChannel();
   private static final int APP_INITIALIZE_TOAST_DELAY = 3000;
 
   @Nullable ScreenCoordinator screenCoordinator;
@@ -42,14 +55,103 @@ public class ReactNavigationCoordinator {
       // TODO: throw error. can only initialize once.
     }
     this.reactInstanceManager = reactInstanceManager;
-    this.reactInstanceManager.addReactInstanceEventListener(
-        new ReactInstanceManager.ReactInstanceEventListener() {
-          @Override
-          public void onReactContextInitialized(ReactContext context) {
-            reactInstanceManager.removeReactInstanceEventListener(this);
-            isSuccessfullyInitialized = true;
-          }
-        });
+    bundles.put(MAIN_BUNDLE, new ReactContextScheduler(reactInstanceManager));
+  }
+
+  /**
+   * Registers a separately loaded JS bundle. Its {@link ReactInstanceManager} is only created the
+   * first time one of {@code screenNames} is shown. Screens the bundle registers itself are mapped
+   * to it as well, as long as its {@link NativeNavigationPackage} is created with its name.
+   */
+  public void injectBundle(String bundleName, ReactInstanceManagerFactory factory,
+      Collection<String> screenNames) {
+    bundleFactories.put(bundleName, factory);
+    for (String screenName : screenNames) {
+      screenBundles.put(screenName, bundleName);
+    }
+  }
+
+  ReactContextScheduler getContextScheduler() {
+    return bundles.get(MAIN_BUNDLE);
+  }
+
+  /**
+   * Returns the scheduler of the bundle {@code screenName} lives in, creating the bundle's
+   * {@link ReactInstanceManager} if this is the first time it is needed.
+   */
+  ReactContextScheduler getContextScheduler(@Nullable String screenName) {
+    String bundleName = screenName == null ? null : screenBundles.get(screenName);
+    if (bundleName == null) {
+      return getContextScheduler();
+    }
+    ReactContextScheduler scheduler = bundles.get(bundleName);
+    if (scheduler != null) {
+      return scheduler;
+    }
+    synchronized (bundles) {
+      scheduler = bundles.get(bundleName);
+      if (scheduler == null) {
+        ReactInstanceManagerFactory factory = bundleFactories.get(bundleName);
+        if (factory == null) {
+          Log.w(TAG, "No bundle named " + bundleName + " for " + screenName);
+          return getContextScheduler();
+        }
+        NavigationTrace.event(TAG, "Creating bundle", bundleName);
+        ReactInstanceManager manager = factory.createReactInstanceManager(bundleName);
+        scheduler = new ReactContextScheduler(manager);
+        bundles.put(bundleName, scheduler);
+        ReactAwareActivity activity = resumedActivity == null ? null : resumedActivity.get();
+        if (activity != null) {
+          manager.onHostResume(activity, activity);
+        }
+      }
+    }
+    return scheduler;
+  }
+
+  ReactInstanceManager getReactInstanceManager(@Nullable String screenName) {
+    return getContextScheduler(screenName).getReactInstanceManager();
+  }
+
+  void onHostResume(ReactAwareActivity activity) {
+    resumedActivity = new WeakReference<>(activity);
+    for (ReactContextScheduler scheduler : bundles.values()) {
+      scheduler.getReactInstanceManager().onHostResume(activity, activity);
+    }
+  }
+
+  void onHostPause(ReactAwareActivity activity) {
+    resumedActivity = null;
+    for (ReactContextScheduler scheduler : bundles.values()) {
+      scheduler.getReactInstanceManager().onHostPause(activity);
+    }
+  }
+
+  /**
+   * Requires the JS modules of the given screens once the React context of their bundle is ready,
+   * so that showing them for the first time doesn't have to. Screens of secondary bundles are
+   * skipped unless their bundle already has a context, preloading never starts a bundle.
+   */
+  public void preloadScreens(Collection<String> screenNames) {
+    for (String screenName : screenNames) {
+      if (isBundleRunning(screenName)) {
+        getContextScheduler(screenName).preload(Collections.singletonList(screenName));
+      }
+    }
+  }
+
+  /**
+   * Whether showing {@code screenName} wouldn't start a bundle: it belongs to the main bundle, or
+   * to a secondary one that already has a React context.
+   */
+  boolean isBundleRunning(String screenName) {
+    String bundleName = screenBundles.get(screenName);
+    if (bundleName == null) {
+      return true;
+    }
+    ReactContextScheduler scheduler = bundles.get(bundleName);
+    return scheduler != null
+        && scheduler.getReactInstanceManager().getCurrentReactContext() != null;
   }
 
   public void injectImplementation(NavigationImplementation implementation) {
@@ -66,12 +168,59 @@ public class ReactNavigationCoordinator {
     this.rodo = rodo;
   }
 
+  /**
+   * Sets how much of the navigation pipeline is traced, {@link NavigationTrace.Level#OFF} by
+   * default.
+   */
+  public void injectTraceLevel(NavigationTrace.Level level) {
+    NavigationTrace.setLevel(level);
+  }
+
+  public void injectTransitionMetricsListener(@Nullable TransitionMetricsListener listener) {
+    this.transitionMetricsListener = listener;
+  }
+
+  DeferredUnmountScheduler getUnmountScheduler() {
+    return unmountScheduler;
+  }
+
+  ScreenEventChannel getScreenEventChannel() {
+    return screenEventChannel;
+  }
+
+  FragmentPropsStore getPropsStore() {
+    return propsStore;
+  }
+
+  PromiseRegistry getPromiseRegistry() {
+    return promiseRegistry;
+  }
+
+  NavigationStateChannel getNavigationStateChannel() {
+    return navigationStateChannel;
+  }
+
+  /**
+   * Returns the React contexts of every bundle that currently has one.
+   */
+  List<ReactContext> getReactContexts() {
+    List<ReactContext> contexts = new ArrayList<>(bundles.size());
+    for (ReactContextScheduler scheduler : bundles.values()) {
+      ReactContext context = scheduler.getReactInstanceManager().getCurrentReactContext();
+      if (context != null) {
+        contexts.add(context);
+      }
+    }
+    return contexts;
+  }
+
   public NavigationImplementation getImplementation() {
     return this.navigationImplementation;
   }
 
   boolean isSuccessfullyInitialized() {
-    return isSuccessfullyInitialized;
+    ReactContextScheduler scheduler = getContextScheduler();
+    return scheduler != null && scheduler.isReady();
   }
 
   public void injectExposedActivities(List<ReactExposedActivityParams> exposedActivities) {
@@ -85,18 +234,27 @@ public class ReactNavigationCoordinator {
    * work well enough in the interim.
    */
   private List<ReactExposedActivityParams> exposedActivities;
-  private final Map<String /* instance id */, WeakReference<ReactInterface>> componentsMap =
-      new HashMap<>();
-  private final Map<String /* instance id */, Boolean> dismissCloseBehaviorMap = new HashMap<>();
-  private final Map<String /* name */, ReactScreenConfig> screenMap = new HashMap<>();
+  // These are written on the UI thread and read from the native modules thread as well.
+  private final ComponentRegistry components = new ComponentRegistry();
+  private final Map<String /* name */, ScreenConfig> screenMap = new ConcurrentHashMap<>();
+  private final Map<String /* screen name */, String> screenBundles = new ConcurrentHashMap<>();
+  private final Map<String /* bundle name */, ReactInstanceManagerFactory> bundleFactories =
+      new ConcurrentHashMap<>();
+  private final Map<String /* bundle name */, ReactContextScheduler> bundles =
+      new ConcurrentHashMap<>();
+  @Nullable private WeakReference<ReactAwareActivity> resumedActivity;
   private Rodo rodo;
 
   public void registerComponent(ReactInterface component, String name) {
-    componentsMap.put(name, new WeakReference<>(component));
+    registerComponent(component, name, null);
+  }
+
+  void registerComponent(ReactInterface component, String name, @Nullable String moduleName) {
+    components.register(name, component, getScreenConfig(moduleName));
   }
 
   public void unregisterComponent(String name) {
-    componentsMap.remove(name);
+    components.unregister(name);
   }
 
   /**
@@ -126,31 +284,58 @@ public class ReactNavigationCoordinator {
         String.format("Tried to push Activity with key '%s', but it could not be found", key));
   }
 
-  ReactAwareActivityFacade activityFromId(String id) {
-    WeakReference<ReactInterface> ref = componentsMap.get(id);
-    return ref == null ? null : (ReactAwareActivityFacade) ref.get().getActivity();
+  @Nullable ReactAwareActivityFacade activityFromId(String id) {
+    ReactInterface component = components.get(id);
+    return component == null ? null : (ReactAwareActivityFacade) component.getActivity();
   }
 
-  ReactInterface componentFromId(String id) {
-    WeakReference<ReactInterface> ref = componentsMap.get(id);
-    return ref == null ? null : ref.get();
+  @Nullable ReactInterface componentFromId(String id) {
+    return components.get(id);
   }
 
   // If set to true, the Activity will be dismissed when its Toolbar NavigationIcon (home button) is clicked,
-  // instead of performing the default behavior (finish)
+  // instead of performing the default behavior (finish). May be called before the component
+  // registers, the value is applied once it does.
   public void setDismissCloseBehavior(String id, boolean dismissClose) {
-    dismissCloseBehaviorMap.put(id, dismissClose);
+    components.setDismissClose(id, dismissClose);
   }
 
   public boolean getDismissCloseBehavior(ReactInterface reactInterface) {
-    String id = reactInterface.getInstanceId();
-    Boolean dismissClose = dismissCloseBehaviorMap.get(id);
-    return dismissClose != null && dismissClose;
+    ComponentRegistry.Record record = components.getRecord(reactInterface.getInstanceId());
+    return record != null && record.dismissClose;
+  }
+
+  void onTransitionFinished(String instanceId, boolean enter, int frameCount, int jankCount,
+      long durationMs) {
+    ComponentRegistry.Record record = components.getRecord(instanceId);
+    if (record != null) {
+      record.onTransitionFinished(jankCount);
+    }
+    if (transitionMetricsListener != null) {
+      transitionMetricsListener.onTransitionFinished(
+          instanceId, enter, frameCount, jankCount, durationMs);
+    }
+  }
+
+  void onScreenStarted(String instanceId, long enterDelayMs, long firstRenderMs) {
+    ComponentRegistry.Record record = components.getRecord(instanceId);
+    if (record != null) {
+      record.enterDelayMs = enterDelayMs;
+      record.firstRenderMs = firstRenderMs;
+    }
   }
 
   public void registerScreen(String screenName, ReadableMap initialConfig, boolean waitForRender,
       String mode) {
-    screenMap.put(screenName, new ReactScreenConfig(
+    registerScreen(screenName, initialConfig, waitForRender, mode, MAIN_BUNDLE);
+  }
+
+  void registerScreen(String screenName, ReadableMap initialConfig, boolean waitForRender,
+      String mode, String bundleName) {
+    if (!MAIN_BUNDLE.equals(bundleName)) {
+      screenBundles.put(screenName, bundleName);
+    }
+    screenMap.put(screenName, ScreenConfig.compile(
         initialConfig,
         waitForRender,
         ReactScreenMode.fromString(mode)
@@ -162,7 +347,7 @@ public class ReactNavigationCoordinator {
       handleOverlayPermissionsMissing(application);
       return;
     }
-    reactInstanceManager.createReactContextInBackground();
+    getContextScheduler().start();
   }
 
   private static void handleOverlayPermissionsMissing(final Application application) {
@@ -194,34 +379,20 @@ public class ReactNavigationCoordinator {
         ConversionUtil.toBundle(options));
   }
 
-  @NonNull private ReactScreenConfig getOrDefault(String screenName) {
-    ReactScreenConfig screen = screenMap.get(screenName);
+  @NonNull ScreenConfig getScreenConfig(@Nullable String screenName) {
+    ScreenConfig screen = screenName == null ? null : screenMap.get(screenName);
     if (screen == null) {
-      screen = ReactScreenConfig.EMPTY;
+      screen = ScreenConfig.EMPTY;
     }
     return screen;
   }
 
   ReadableMap getInitialConfigForModuleName(String screenName) {
-    return getOrDefault(screenName).initialConfig;
+    return getScreenConfig(screenName).initialConfig;
   }
 
   ReactScreenMode getScreenModeForModuleName(String screenName) {
-    return getOrDefault(screenName).mode;
+    return getScreenConfig(screenName).mode;
   }
 
-  private static final class ReactScreenConfig {
-    final ReadableMap initialConfig;
-    final boolean waitForRender;
-    final ReactScreenMode mode;
-
-    static final ReactScreenConfig EMPTY =
-        new ReactScreenConfig(ConversionUtil.EMPTY_MAP, true, ReactScreenMode.SCREEN);
-
-    ReactScreenConfig(ReadableMap initialConfig, boolean waitForRender, ReactScreenMode mode) {
-      this.initialConfig = initialConfig;
-      this.waitForRender = waitForRender;
-      this.mode = mode;
-    }
-  }
 }
@@ -0,0 +1,25 @@
+package com.airbnb.android.react.navigation;
+
+import android.support.annotation.Nullable;
+
+/**
+ * When the enter transition of a React Native screen is allowed to start.
+ */
+enum RenderGatingPolicy {
+  /** Start right away, the screen is registered with {@code waitForRender: false}. */
+  IMMEDIATE,
+  /** Postpone until JS signals the first render, or the render timeout fires. */
+  WAIT_FOR_FIRST_RENDER,
+  /**
+   * Postpone until every shared element handed over by the previous screen is laid out, or the
+   * first render, whichever comes first.
+   */
+  WAIT_FOR_SHARED_ELEMENTS;
+
+  static RenderGatingPolicy of(ScreenConfig config, @Nullable SharedElementSnapshot snapshot) {
+    if (!config.waitForRender) {
+      return IMMEDIATE;
+    }
+    return snapshot == null ? WAIT_FOR_FIRST_RENDER : WAIT_FOR_SHARED_ELEMENTS;
+  }
+}
@@ -0,0 +1,61 @@
+package com.airbnb.android.react.navigation;
+
+import android.graphics.Color;
+import android.support.annotation.ColorInt;
+
+import com.facebook.react.bridge.ReadableMap;
+
+/**
+ * The configuration of a screen as registered from JS, read out of the bridge map once at
+ * registration time so the transition and view creation paths don't have to query it.
+ */
+final class ScreenConfig {
+
+  private static final String SCREEN_COLOR = "screenColor";
+
+  private static final String HARDWARE_LAYER_TRANSITIONS = "hardwareLayerTransitions";
+
+  static final ScreenConfig EMPTY =
+      compile(ConversionUtil.EMPTY_MAP, true, ReactScreenMode.SCREEN);
+
+  /** The raw map, still needed to reconcile with the properties the screen renders. */
+  final ReadableMap initialConfig;
+
+  final boolean waitForRender;
+
+  final ReactScreenMode mode;
+
+  final boolean hasScreenColor;
+
+  @ColorInt final int screenColor;
+
+  /** Whether the screen below stays visible, i.e. the screen color isn't opaque. */
+  final boolean isTranslucent;
+
+  final boolean hardwareLayerTransitions;
+
+  private ScreenConfig(ReadableMap initialConfig, boolean waitForRender, ReactScreenMode mode) {
+    this.initialConfig = initialConfig;
+    this.waitForRender = waitForRender;
+    this.mode = mode;
+    hasScreenColor = initialConfig.hasKey(SCREEN_COLOR);
+    screenColor = hasScreenColor ? initialConfig.getInt(SCREEN_COLOR) : Color.WHITE;
+    isTranslucent = hasScreenColor && Color.alpha(screenColor) < 255;
+    hardwareLayerTransitions = !initialConfig.hasKey(HARDWARE_LAYER_TRANSITIONS)
+        || initialConfig.getBoolean(HARDWARE_LAYER_TRANSITIONS);
+  }
+
+  static ScreenConfig compile(ReadableMap initialConfig, boolean waitForRender,
+      ReactScreenMode mode) {
+    return new ScreenConfig(initialConfig, waitForRender, mode);
+  }
+
+  @Override
+  public String toString() {
+    return "ScreenConfig{" +
+        "mode=" + mode +
+        ", waitForRender=" + waitForRender +
+        ", isTranslucent=" + isTranslucent +
+        '}';
+  }
+}
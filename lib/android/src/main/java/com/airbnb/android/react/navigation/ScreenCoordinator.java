@@ -4,11 +4,12 @@ import com.airbnb.android.R;
 import com.facebook.react.bridge.NativeModule;
 import com.facebook.react.bridge.Promise;
 import com.facebook.react.bridge.ReadableMap;
+import com.facebook.react.bridge.ReadableType;
+import com.facebook.react.bridge.WritableNativeMap;
 import com.facebook.react.common.MapBuilder;
 
 import android.annotation.TargetApi;
 import android.app.Activity;
-import android.graphics.Color;
 import android.os.Build;
 import android.os.Bundle;
 import android.support.annotation.AnimRes;
@@ -21,15 +22,15 @@ import android.support.v4.app.FragmentManager;
 import android.support.v4.app.FragmentTransaction;
 import android.support.v7.app.AppCompatActivity;
 import android.transition.Fade;
-import android.util.Log;
 import android.view.ViewGroup;
 import android.view.animation.Animation;
-import android.view.animation.AnimationUtils;
 import android.widget.FrameLayout;
 
+import java.util.ArrayList;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.Stack;
+import java.util.WeakHashMap;
 
 import static com.airbnb.android.react.navigation.ReactNativeIntents.EXTRA_CODE;
 
@@ -44,12 +45,17 @@ public class ScreenCoordinator {
 
   private static final String TRANSITION_GROUP = "transitionGroup";
 
-  private final Stack<BackStack> backStacks = new Stack<>();
+  private static final String ANIMATION_DURATION = "animationDuration";
+
+  /** Presented back stacks, bottom first. Main thread only. */
+  private final ArrayList<BackStack> backStacks = new ArrayList<>();
 
   private final AppCompatActivity activity;
 
   private final ScreenCoordinatorLayout container;
 
+  private final PresentAnimationEngine animationEngine;
+
   /**
    * Event listener to be access from the {@linkplain NativeModule} for JS -> Native event
    * propagation.
@@ -62,6 +68,13 @@ public class ScreenCoordinator {
 
   private int stackId = 0;
 
+  private static int nextNavigatorId = 1;
+
+  private final int navigatorId = nextNavigatorId++;
+
+  /** Id of the tab this coordinator belongs to, if it's managed by a {@link TabCoordinator}. */
+  @Nullable private Integer tabId;
+
   /**
    * When we dismiss a back stack, the fragment manager would normally execute the latest fragment's
    * pop exit animation. However, if we present A as a modal, push, B, then dismiss(), the latest
@@ -71,12 +84,21 @@ public class ScreenCoordinator {
   @AnimRes
   private int nextPopExitAnim;
 
+  /**
+   * Duration of the next enter and exit animation of each fragment. Transactions are executed
+   * asynchronously, so these are recorded per fragment when a transaction is committed and read
+   * once the fragment asks for its animation.
+   */
+  private final Map<Fragment, Long> enterDurations = new WeakHashMap<>();
+  private final Map<Fragment, Long> exitDurations = new WeakHashMap<>();
+
   private Map<String, NativeScreenFactory> factories = new LinkedHashMap<>();
 
   public ScreenCoordinator(AppCompatActivity activity, ScreenCoordinatorLayout container,
       @Nullable Bundle savedInstanceState) {
     this.activity = activity;
     this.container = container;
+    this.animationEngine = new PresentAnimationEngine(activity);
     container.setFragmentManager(activity.getSupportFragmentManager());
     // TODO: restore state
   }
@@ -130,14 +152,33 @@ public class ScreenCoordinator {
     pushScreen(fragment, options);
   }
 
+  /**
+   * Push a screen with props received from JS. The props are kept in their native form and handed
+   * to the root view without converting them to a {@link Bundle}.
+   */
+  void pushScreenFromBridge(String moduleName, @Nullable ReadableMap props,
+      @Nullable Bundle options, String instanceId) {
+    pushScreen(ReactNativeFragment.newInstanceFromBridge(moduleName, props, instanceId), options);
+  }
+
   public void pushScreen(Fragment fragment) {
     pushScreen(fragment, null);
   }
 
   public void pushScreen(Fragment fragment, @Nullable Bundle options) {
+    NavigationTrace.beginSection("ScreenCoordinator.pushScreen");
+    try {
+      push(fragment, options);
+    } finally {
+      NavigationTrace.endSection();
+    }
+  }
+
+  private void push(Fragment fragment, @Nullable Bundle options) {
     FragmentTransaction ft = activity.getSupportFragmentManager().beginTransaction()
                                      .setAllowOptimization(true);
-    Fragment currentFragment = getCurrentFragment();
+    // Like presentScreen, trust our own stacks over the fragment manager's pending state.
+    Fragment currentFragment = backStacks.isEmpty() ? null : peekBackStack().peekFragment();
     if (currentFragment == null) {
       throw new IllegalStateException("There is no current fragment. You must present one first.");
     }
@@ -148,14 +189,21 @@ public class ScreenCoordinator {
       PresentAnimation anim = PresentAnimation.Push;
       ft.setCustomAnimations(anim.enter, anim.exit, anim.popEnter, anim.popExit);
     }
-    BackStack bsi = backStacks.peek();
-    ft
-        .detach(currentFragment)
-        .add(container.getId(), fragment)
-        .addToBackStack(null)
-        .commit();
-    bsi.pushFragment(fragment);
-    Log.d(TAG, toString());
+    BackStack bsi = peekBackStack();
+    long animationDuration = getAnimationDuration(options);
+    setTransitionDuration(fragment, currentFragment, animationDuration);
+    NavigationTrace.beginSection("ScreenCoordinator.commit");
+    try {
+      ft
+          .detach(currentFragment)
+          .add(container.getId(), fragment)
+          .addToBackStack(null)
+          .commit();
+    } finally {
+      NavigationTrace.endSection();
+    }
+    bsi.pushFragment(fragment, animationDuration);
+    onStacksChanged();
   }
 
   @TargetApi(Build.VERSION_CODES.LOLLIPOP)
@@ -173,6 +221,13 @@ public class ScreenCoordinator {
         R.id.react_shared_element_group_id,
         options.getString(TRANSITION_GROUP));
     AutoSharedElementCallback.addSharedElementsToFragmentTransaction(transaction, transitionGroup);
+    // Hand the already laid out geometry over to the incoming screen so it doesn't have to wait
+    // for its own first render before the enter transition can start.
+    Bundle args = inFragment.getArguments();
+    if (args != null && transitionGroup != null) {
+      args.putParcelable(ReactNativeFragment.EXTRA_SHARED_ELEMENT_SNAPSHOT,
+          SharedElementSnapshot.capture(transitionGroup));
+    }
   }
 
   public void presentScreen(String moduleName) {
@@ -188,7 +243,31 @@ public class ScreenCoordinator {
       props.putAll(options);
     }
     Fragment fragment = ReactNativeFragment.newInstance(moduleName, props);
-    presentScreen(fragment, PresentAnimation.Modal, promise);
+    presentScreen(fragment, PresentAnimation.Modal, getAnimationDuration(options), promise);
+  }
+
+  /**
+   * Present a screen with props received from JS. See
+   * {@link #pushScreenFromBridge(String, ReadableMap, Bundle, String)}.
+   */
+  void presentScreenFromBridge(
+      String moduleName,
+      @Nullable ReadableMap props,
+      @Nullable ReadableMap options,
+      @Nullable Promise promise,
+      String instanceId) {
+    ReadableMap mergedProps = props;
+    if (options != null) {
+      // Options are part of the props even when JS didn't pass any.
+      WritableNativeMap merged = props == null
+          ? new WritableNativeMap()
+          : ConversionUtil.toWritableNativeMap(props);
+      ConversionUtil.mergeNative(merged, options);
+      mergedProps = merged;
+    }
+    Fragment fragment =
+        ReactNativeFragment.newInstanceFromBridge(moduleName, mergedProps, instanceId);
+    presentScreen(fragment, PresentAnimation.Modal, getAnimationDuration(options), promise);
   }
 
   /**
@@ -218,22 +297,19 @@ public class ScreenCoordinator {
     }
     Fragment fragment = ReactNativeFragment
         .newInstance(moduleName, props, toolbarTitle, toolbarPrimaryColor, toolbarSecondaryColor);
-    presentScreen(fragment, PresentAnimation.Modal, promise);
+    presentScreen(fragment, PresentAnimation.Modal, getAnimationDuration(options), promise);
   }
 
   public void presentScreen(Fragment fragment) {
     presentScreen(fragment, null);
   }
 
-  private Boolean isFragmentTranslucent(Fragment fragment) {
+  private boolean isFragmentTranslucent(Fragment fragment) {
     Bundle bundle = fragment.getArguments();
     if (bundle != null) {
       String moduleName = bundle.getString(ReactNativeIntents.EXTRA_MODULE_NAME);
       if (moduleName != null) {
-        ReadableMap config = reactNavigationCoordinator.getInitialConfigForModuleName(moduleName);
-        if (config != null && config.hasKey("screenColor")) {
-          return Color.alpha(config.getInt("screenColor")) < 255;
-        }
+        return reactNavigationCoordinator.getScreenConfig(moduleName).isTranslucent;
       }
     }
     return false;
@@ -244,34 +320,137 @@ public class ScreenCoordinator {
   }
 
   public void presentScreen(Fragment fragment, PresentAnimation anim, @Nullable Promise promise) {
+    presentScreen(fragment, anim, PresentAnimationEngine.DEFAULT_DURATION, promise);
+  }
+
+  private void presentScreen(Fragment fragment, PresentAnimation anim, long duration,
+      @Nullable Promise promise) {
     if (fragment == null) {
       throw new IllegalArgumentException("Fragment must not be null.");
     }
-    BackStack bsi = new BackStack(getNextStackTag(), anim, promise);
-    backStacks.push(bsi);
+    NavigationTrace.beginSection("ScreenCoordinator.presentScreen");
+    try {
+      present(fragment, anim, duration, promise);
+    } finally {
+      NavigationTrace.endSection();
+    }
+  }
+
+  private void present(Fragment fragment, PresentAnimation anim, long duration,
+      @Nullable Promise promise) {
+    // Read the current screen from our own stacks rather than the fragment manager, which may
+    // still have a pending pop (e.g. from dismissAll) that hasn't been executed yet.
+    Fragment currentFragment = backStacks.isEmpty() ? null : peekBackStack().peekFragment();
+    BackStack bsi = new BackStack(getNextStackTag(), anim, duration, promise);
+    backStacks.add(bsi);
     // TODO: dry this up with pushScreen
     FragmentTransaction ft = activity.getSupportFragmentManager().beginTransaction()
                                      .setAllowOptimization(true)
                                      .setCustomAnimations(anim.enter, anim.exit, anim.popEnter, anim.popExit);
 
-    Fragment currentFragment = getCurrentFragment();
     if (currentFragment != null && !isFragmentTranslucent(fragment)) {
       container.willDetachCurrentScreen();
       ft.detach(currentFragment);
+      setTransitionDuration(fragment, currentFragment, duration);
+    } else {
+      setTransitionDuration(fragment, null, duration);
     }
-    ft
-        .add(container.getId(), fragment)
-        .addToBackStack(bsi.getTag())
-        .commit();
-    activity.getSupportFragmentManager().executePendingTransactions();
-    bsi.pushFragment(fragment);
-    Log.d(TAG, toString());
+    if (fragment.isAdded()) {
+      // Prefetched into the container while hidden (see ReactNativeTabActivity), so its root view
+      // is already mounted. Popping this stack hides it again.
+      ft.show(fragment);
+    } else {
+      ft.add(container.getId(), fragment);
+    }
+    NavigationTrace.beginSection("ScreenCoordinator.commit");
+    try {
+      ft
+          .addToBackStack(bsi.getTag())
+          .commit();
+    } finally {
+      NavigationTrace.endSection();
+    }
+    bsi.pushFragment(fragment, duration);
+    onStacksChanged();
   }
 
+  /**
+   * Dismisses every back stack at once. The fragment manager is popped straight to the state
+   * before the bottom stack with a single inclusive pop, and the pending promises are resolved
+   * with {@link Activity#RESULT_CANCELED}, top-most stack first.
+   */
   public void dismissAll() {
-    while (!backStacks.isEmpty()) {
-      dismiss(0, null, false);
-      activity.getFragmentManager().executePendingTransactions();
+    if (backStacks.isEmpty()) {
+      return;
+    }
+    NavigationTrace.beginSection("ScreenCoordinator.dismissAll");
+    try {
+      String rootTag = backStacks.get(0).getTag();
+      List<Promise> promises = new ArrayList<>(backStacks.size());
+      while (!backStacks.isEmpty()) {
+        BackStack bsi = popBackStack();
+        setTransitionDuration(null, bsi.peekFragment(), bsi.getAnimationDuration());
+        promises.add(bsi.getPromise());
+      }
+      // Nothing is left to animate to, so don't slide down whatever the last pop exit was.
+      nextPopExitAnim = 0;
+      activity.getSupportFragmentManager()
+              .popBackStack(rootTag, FragmentManager.POP_BACK_STACK_INCLUSIVE);
+      for (Promise promise : promises) {
+        deliverPromise(promise, Activity.RESULT_CANCELED, null);
+      }
+      onStacksChanged();
+    } finally {
+      NavigationTrace.endSection();
+    }
+  }
+
+  /**
+   * Replaces all back stacks with a single one holding {@code screens}, bottom first, in one
+   * fragment transaction. Only the last screen is instantiated; the ones below it are created when
+   * the user navigates back to them.
+   */
+  public void resetTo(List<ScreenDescriptor> screens) {
+    if (screens.isEmpty()) {
+      throw new IllegalArgumentException("At least one screen is required.");
+    }
+    NavigationTrace.beginSection("ScreenCoordinator.resetTo");
+    try {
+      dismissAll();
+      PresentAnimation anim = PresentAnimation.Fade;
+      BackStack bsi = new BackStack(getNextStackTag(), anim, null);
+      int top = screens.size() - 1;
+      for (int i = 0; i < top; i++) {
+        bsi.pushDescriptor(screens.get(i), PresentAnimationEngine.DEFAULT_DURATION);
+      }
+      Fragment fragment = screens.get(top).createFragment();
+      setTransitionDuration(fragment, null, PresentAnimationEngine.DEFAULT_DURATION);
+      backStacks.add(bsi);
+      commitStackRoot(bsi, fragment, anim.enter, anim.exit);
+      bsi.pushFragment(fragment);
+      onStacksChanged();
+    } finally {
+      NavigationTrace.endSection();
+    }
+  }
+
+  /**
+   * Adds the first instantiated fragment of {@code bsi} in a transaction tagged with the stack's
+   * tag. Popping it goes back like a pushed screen would.
+   */
+  private void commitStackRoot(BackStack bsi, Fragment fragment, @AnimRes int enter,
+      @AnimRes int exit) {
+    PresentAnimation pop = PresentAnimation.Push;
+    NavigationTrace.beginSection("ScreenCoordinator.commit");
+    try {
+      activity.getSupportFragmentManager().beginTransaction()
+              .setAllowOptimization(true)
+              .setCustomAnimations(enter, exit, pop.popEnter, pop.popExit)
+              .add(container.getId(), fragment)
+              .addToBackStack(bsi.getTag())
+              .commit();
+    } finally {
+      NavigationTrace.endSection();
     }
   }
 
@@ -282,11 +461,11 @@ public class ScreenCoordinator {
   @CheckResult
   public boolean onBackPressed() {
     // If the stack is empty the caller should handle the back navigation.
-    if (backStacks.empty()) {
+    if (backStacks.isEmpty()) {
       return false;
     }
 
-    BackStack bsi = backStacks.peek();
+    BackStack bsi = peekBackStack();
 
     // With one item in stack dismiss screen.
     if (bsi.getSize() == 1) {
@@ -294,12 +473,37 @@ public class ScreenCoordinator {
       return true;
     }
 
-    bsi.popFragment();
-    activity.getSupportFragmentManager().popBackStack();
+    NavigationTrace.beginSection("ScreenCoordinator.onBackPressed");
+    try {
+      popScreen(bsi);
+    } finally {
+      NavigationTrace.endSection();
+    }
+    return true;
+  }
 
-    Log.d(TAG, toString());
+  /**
+   * Pops the top screen of {@code bsi}, which must have more than one entry.
+   */
+  private void popScreen(BackStack bsi) {
+    long animationDuration = bsi.peekAnimationDuration();
+    Fragment poppedFragment = bsi.popFragment();
+    ScreenDescriptor descriptor = bsi.peekDescriptor();
+    if (descriptor == null) {
+      setTransitionDuration(bsi.peekFragment(), poppedFragment, animationDuration);
+      activity.getSupportFragmentManager().popBackStack();
+    } else {
+      // The screen we go back to was never created. The one we leave is the first that was, so it
+      // was added by the stack's tagged transaction; replace that with one adding the new fragment.
+      Fragment fragment = descriptor.createFragment();
+      bsi.materializeTop(fragment);
+      setTransitionDuration(fragment, poppedFragment, animationDuration);
+      activity.getSupportFragmentManager()
+              .popBackStack(bsi.getTag(), FragmentManager.POP_BACK_STACK_INCLUSIVE);
+      commitStackRoot(bsi, fragment, PresentAnimation.Push.popEnter, PresentAnimation.Push.exit);
+    }
 
-    return true;
+    onStacksChanged();
   }
 
   public void dismiss() {
@@ -311,21 +515,35 @@ public class ScreenCoordinator {
   }
 
   private void dismiss(int resultCode, Map<String, Object> payload, boolean finishIfEmpty) {
+    NavigationTrace.beginSection("ScreenCoordinator.dismiss");
+    try {
+      dismissTopBackStack(resultCode, payload, finishIfEmpty);
+    } finally {
+      NavigationTrace.endSection();
+    }
+  }
 
+  private void dismissTopBackStack(int resultCode, Map<String, Object> payload,
+      boolean finishIfEmpty) {
     if (backStacks.isEmpty()) {
       if (finishIfEmpty) {
         activity.supportFinishAfterTransition();
         return;
       }
     } else {
-      BackStack bsi = backStacks.pop();
+      BackStack bsi = popBackStack();
       Promise promise = bsi.getPromise();
       deliverPromise(promise, resultCode, payload);
       // This is needed so we can override the pop exit animation to slide down.
       PresentAnimation anim = bsi.getAnimation();
+      setTransitionDuration(
+          backStacks.isEmpty() ? null : peekBackStack().peekFragment(),
+          bsi.peekFragment(),
+          bsi.getAnimationDuration());
 
       if (backStacks.isEmpty()) {
         if (finishIfEmpty) {
+          onStacksChanged();
           activity.supportFinishAfterTransition();
           return;
         }
@@ -336,19 +554,67 @@ public class ScreenCoordinator {
 
       activity.getSupportFragmentManager()
               .popBackStackImmediate(bsi.getTag(), FragmentManager.POP_BACK_STACK_INCLUSIVE);
-      Log.d(TAG, toString());
+      onStacksChanged();
     }
   }
 
-  public Animation onCreateAnimation(int transit, boolean enter, int nextAnim) {
+  /**
+   * Returns the animation a fragment in this coordinator should run. Unlike the default fragment
+   * behavior this always loads the animation, so the caller can observe its start and end.
+   */
+  @Nullable
+  public Animation onCreateAnimation(
+      @Nullable Fragment fragment, int transit, boolean enter, int nextAnim) {
+    Long duration = fragment == null
+        ? null
+        : (enter ? enterDurations : exitDurations).remove(fragment);
+    long animationDuration =
+        duration == null ? PresentAnimationEngine.DEFAULT_DURATION : duration;
     if (!enter && nextPopExitAnim != 0) {
       // If this fragment was pushed on to the stack, it's pop exit animation will be
       // slide out right. However, we want it to be slide down in this case.
       int anim = nextPopExitAnim;
       nextPopExitAnim = 0;
-      return AnimationUtils.loadAnimation(activity, anim);
+      return animationEngine.create(anim, animationDuration);
+    }
+    return animationEngine.create(nextAnim, animationDuration);
+  }
+
+  /**
+   * Like {@link #onCreateAnimation(Fragment, int, boolean, int)}, always with the default duration.
+   */
+  @Nullable
+  public Animation onCreateAnimation(int transit, boolean enter, int nextAnim) {
+    return onCreateAnimation(null, transit, enter, nextAnim);
+  }
+
+  /**
+   * Records the duration of the transaction about to be committed for the fragments it animates.
+   */
+  private void setTransitionDuration(
+      @Nullable Fragment entering, @Nullable Fragment exiting, long duration) {
+    if (entering != null) {
+      enterDurations.put(entering, duration);
+    }
+    if (exiting != null) {
+      exitDurations.put(exiting, duration);
     }
-    return null;
+  }
+
+  private static long getAnimationDuration(@Nullable Bundle options) {
+    Object duration = options == null ? null : options.get(ANIMATION_DURATION);
+    if (duration instanceof Number) {
+      return ((Number) duration).longValue();
+    }
+    return PresentAnimationEngine.DEFAULT_DURATION;
+  }
+
+  private static long getAnimationDuration(@Nullable ReadableMap options) {
+    if (options != null && options.hasKey(ANIMATION_DURATION)
+        && options.getType(ANIMATION_DURATION) == ReadableType.Number) {
+      return (long) options.getDouble(ANIMATION_DURATION);
+    }
+    return PresentAnimationEngine.DEFAULT_DURATION;
   }
 
   private void deliverPromise(Promise promise, int resultCode, Map<String, Object> payload) {
@@ -359,6 +625,60 @@ public class ScreenCoordinator {
     }
   }
 
+  /**
+   * Number of presented back stacks. Together with {@link #getBackStackDepth(int)},
+   * {@link #getEntryId(int, int)} and {@link #getModuleName(int, int)} this gives a read-only view
+   * of the navigation state that doesn't allocate. Stacks and entries are indexed bottom first.
+   */
+  public int getBackStackCount() {
+    return backStacks.size();
+  }
+
+  public int getBackStackDepth(int stackIndex) {
+    return backStacks.get(stackIndex).getSize();
+  }
+
+  public long getEntryId(int stackIndex, int entryIndex) {
+    return backStacks.get(stackIndex).getEntryId(entryIndex);
+  }
+
+  public String getModuleName(int stackIndex, int entryIndex) {
+    return backStacks.get(stackIndex).getModuleName(entryIndex);
+  }
+
+  public String getBackStackTag(int stackIndex) {
+    return backStacks.get(stackIndex).getTag();
+  }
+
+  /**
+   * Id that tells this coordinator apart from the others in navigation state events.
+   */
+  int getNavigatorId() {
+    return navigatorId;
+  }
+
+  @Nullable
+  Integer getTabId() {
+    return tabId;
+  }
+
+  void setTabId(@Nullable Integer tabId) {
+    this.tabId = tabId;
+  }
+
+  private void onStacksChanged() {
+    NavigationTrace.state(TAG, this);
+    reactNavigationCoordinator.getNavigationStateChannel().onStacksChanged(this);
+  }
+
+  private BackStack peekBackStack() {
+    return backStacks.get(backStacks.size() - 1);
+  }
+
+  private BackStack popBackStack() {
+    return backStacks.remove(backStacks.size() - 1);
+  }
+
   private String getNextStackTag() {
     return getStackTag(stackId++);
   }
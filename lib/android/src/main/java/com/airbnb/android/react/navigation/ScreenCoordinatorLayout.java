@@ -9,9 +9,7 @@ import android.support.v4.app.FragmentManager;
 import android.util.AttributeSet;
 import android.view.View;
 
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.List;
+import java.util.Arrays;
 
 /**
  * This is a custom ViewGroup that draws the fragment that at the end of the back stack on top.
@@ -41,9 +39,16 @@ import java.util.List;
  */
 public class ScreenCoordinatorLayout extends FitsSystemWindowsFrameLayout {
 
-  private final List<DrawingOp> drawingOpPool = new ArrayList<>();
+  /**
+   * Children drawn during the current {@link #dispatchDraw(Canvas)} pass, in the order ViewGroup
+   * asked for them (disappearing views last). Only grows, so drawing never allocates once the
+   * container has seen its maximum number of simultaneous children.
+   */
+  private View[] drawingChildren = new View[4];
 
-  private final List<DrawingOp> drawingOps = new ArrayList<>();
+  private long[] drawingTimes = new long[4];
+
+  private int drawingCount = 0;
 
   private FragmentManager fragmentManager;
 
@@ -73,34 +78,37 @@ public class ScreenCoordinatorLayout extends FitsSystemWindowsFrameLayout {
     isDetachingCurrentScreen = true;
   }
 
-  private void drawAndRelease(int index) {
-    DrawingOp op = drawingOps.remove(index);
-    op.draw();
-    drawingOpPool.add(op);
-  }
-
   @Override
   protected void dispatchDraw(Canvas canvas) {
+    drawingCount = 0;
     super.dispatchDraw(canvas);
 
     // check the view removal is completed (by comparing the previous children count)
-    if (drawingOps.size() < previousChildrenCount) {
+    if (drawingCount < previousChildrenCount) {
       reverseLastTwoChildren = false;
     }
-    previousChildrenCount = drawingOps.size();
+    previousChildrenCount = drawingCount;
 
-    if (reverseLastTwoChildren && drawingOps.size() >= 2) {
-      Collections.swap(drawingOps, drawingOps.size() - 1, drawingOps.size() - 2);
+    if (reverseLastTwoChildren && drawingCount >= 2) {
+      swap(drawingCount - 1, drawingCount - 2);
     }
 
-    while (!drawingOps.isEmpty()) {
-      drawAndRelease(0);
+    for (int i = 0; i < drawingCount; i++) {
+      super.drawChild(canvas, drawingChildren[i], drawingTimes[i]);
+      drawingChildren[i] = null;
     }
+    drawingCount = 0;
   }
 
   @Override
   protected boolean drawChild(Canvas canvas, View child, long drawingTime) {
-    drawingOps.add(obtainDrawingOp().set(canvas, child, drawingTime));
+    if (drawingCount == drawingChildren.length) {
+      drawingChildren = Arrays.copyOf(drawingChildren, drawingCount * 2);
+      drawingTimes = Arrays.copyOf(drawingTimes, drawingCount * 2);
+    }
+    drawingChildren[drawingCount] = child;
+    drawingTimes[drawingCount] = drawingTime;
+    drawingCount++;
     return true;
   }
 
@@ -114,37 +122,12 @@ public class ScreenCoordinatorLayout extends FitsSystemWindowsFrameLayout {
     super.removeView(view);
   }
 
-  private void performDraw(DrawingOp op) {
-    super.drawChild(op.canvas, op.child, op.drawingTime);
-  }
-
-  private DrawingOp obtainDrawingOp() {
-    if (drawingOpPool.isEmpty()) {
-      return new DrawingOp();
-    }
-    return drawingOpPool.remove(drawingOpPool.size() - 1);
-  }
-
-  private final class DrawingOp {
-
-    private Canvas canvas;
-
-    private View child;
-
-    private long drawingTime;
-
-    DrawingOp set(Canvas canvas, View child, long drawingTime) {
-      this.canvas = canvas;
-      this.child = child;
-      this.drawingTime = drawingTime;
-      return this;
-    }
-
-    void draw() {
-      performDraw(this);
-      canvas = null;
-      child = null;
-      drawingTime = 0;
-    }
+  private void swap(int i, int j) {
+    View child = drawingChildren[i];
+    drawingChildren[i] = drawingChildren[j];
+    drawingChildren[j] = child;
+    long drawingTime = drawingTimes[i];
+    drawingTimes[i] = drawingTimes[j];
+    drawingTimes[j] = drawingTime;
   }
 }
@@ -0,0 +1,36 @@
+package com.airbnb.android.react.navigation;
+
+import android.os.Bundle;
+import android.support.annotation.Nullable;
+
+/**
+ * A React screen that's part of a back stack but hasn't been instantiated yet. See
+ * {@link ScreenCoordinator#resetTo(java.util.List)}.
+ */
+public final class ScreenDescriptor {
+  private final String moduleName;
+  @Nullable private final Bundle props;
+
+  public ScreenDescriptor(String moduleName, @Nullable Bundle props) {
+    this.moduleName = moduleName;
+    this.props = props;
+  }
+
+  public String getModuleName() {
+    return moduleName;
+  }
+
+  @Nullable
+  public Bundle getProps() {
+    return props;
+  }
+
+  ReactNativeFragment createFragment() {
+    return ReactNativeFragment.newInstance(moduleName, props);
+  }
+
+  @Override
+  public String toString() {
+    return "ScreenDescriptor{moduleName='" + moduleName + "'}";
+  }
+}
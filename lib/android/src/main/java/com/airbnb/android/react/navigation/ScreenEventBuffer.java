@@ -0,0 +1,89 @@
+package com.airbnb.android.react.navigation;
+
+import android.util.Log;
+
+import com.facebook.react.bridge.ReactContext;
+
+import java.util.ArrayDeque;
+
+/**
+ * Holds the events of a single screen until both the React context is ready and the screen has
+ * rendered once (so its {@code Navigator.Config} has subscribed), then hands them to the
+ * {@link ScreenEventChannel} in order.
+ *
+ * The buffer is bounded, when it is full the oldest event is dropped.
+ */
+final class ScreenEventBuffer {
+
+  private static final String TAG = ScreenEventBuffer.class.getSimpleName();
+
+  private static final int MAX_EVENTS = 16;
+
+  private final ArrayDeque<PendingEvent> pendingEvents = new ArrayDeque<>();
+
+  private final ScreenEventChannel channel;
+
+  private final String instanceId;
+
+  private boolean isScreenReady;
+
+  ScreenEventBuffer(ScreenEventChannel channel, String instanceId) {
+    this.channel = channel;
+    this.instanceId = instanceId;
+  }
+
+  /**
+   * Emits the event right away if the screen is ready, otherwise queues it.
+   */
+  void emit(ReactContext context, String name, Object data) {
+    if (isScreenReady && isContextReady(context)) {
+      flush(context);
+      channel.emit(context, instanceId, name, data);
+      return;
+    }
+    if (pendingEvents.size() == MAX_EVENTS) {
+      PendingEvent dropped = pendingEvents.poll();
+      Log.w(TAG, "Event buffer full, dropping " + dropped.name);
+    }
+    pendingEvents.add(new PendingEvent(name, data));
+  }
+
+  /**
+   * Marks the screen as rendered and delivers everything that was queued, in order.
+   */
+  void onScreenReady(ReactContext context) {
+    isScreenReady = true;
+    if (isContextReady(context)) {
+      flush(context);
+    }
+  }
+
+  /**
+   * The JS side of the screen is going away (e.g. its view is destroyed), hold events again until
+   * it renders next time.
+   */
+  void onScreenGone() {
+    isScreenReady = false;
+  }
+
+  private void flush(ReactContext context) {
+    while (!pendingEvents.isEmpty()) {
+      PendingEvent event = pendingEvents.poll();
+      channel.emit(context, instanceId, event.name, event.data);
+    }
+  }
+
+  private static boolean isContextReady(ReactContext context) {
+    return context != null && context.hasActiveCatalystInstance();
+  }
+
+  private static final class PendingEvent {
+    final String name;
+    final Object data;
+
+    PendingEvent(String name, Object data) {
+      this.name = name;
+      this.data = data;
+    }
+  }
+}
@@ -0,0 +1,95 @@
+package com.airbnb.android.react.navigation;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.ReactContext;
+import com.facebook.react.bridge.ReadableArray;
+import com.facebook.react.bridge.ReadableMap;
+import com.facebook.react.bridge.WritableArray;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.airbnb.android.react.navigation.ReactNativeUtils.maybeEmitEvent;
+
+/**
+ * Single JS event channel for the events of every screen.
+ *
+ * Events emitted during the same main thread message (e.g. the {@code onDisappear} of the
+ * outgoing screen and the {@code onAppear} of the incoming one) are sent as one
+ * {@value #EVENT_NAME} event whose body is a flat array of
+ * {@code [instanceId, eventName, payload, instanceId, eventName, payload, ...]}. Every React
+ * context gets its own batch, so events of screens in one bundle never reach another bundle.
+ */
+final class ScreenEventChannel {
+
+  static final String EVENT_NAME = "NativeNavigationScreenEvent";
+
+  private final Handler handler = new Handler(Looper.getMainLooper());
+
+  private final Map<ReactContext, List<Object>> pending = new IdentityHashMap<>();
+
+  private final Runnable flushRunnable = new Runnable() {
+    @Override
+    public void run() {
+      flush();
+    }
+  };
+
+  /**
+   * Queues an event for the next batch. Must be called on the main thread.
+   */
+  void emit(ReactContext context, String instanceId, String eventName, Object payload) {
+    if (pending.isEmpty()) {
+      handler.post(flushRunnable);
+    }
+    List<Object> events = pending.get(context);
+    if (events == null) {
+      events = new ArrayList<>();
+      pending.put(context, events);
+    }
+    events.add(instanceId);
+    events.add(eventName);
+    events.add(payload);
+  }
+
+  private void flush() {
+    if (pending.isEmpty()) {
+      return;
+    }
+    for (Map.Entry<ReactContext, List<Object>> entry : pending.entrySet()) {
+      List<Object> events = entry.getValue();
+      WritableArray batch = Arguments.createArray();
+      for (int i = 0; i < events.size(); i++) {
+        pushValue(batch, events.get(i));
+      }
+      maybeEmitEvent(entry.getKey(), EVENT_NAME, batch);
+    }
+    pending.clear();
+  }
+
+  private static void pushValue(WritableArray array, Object value) {
+    if (value == null) {
+      array.pushNull();
+    } else if (value instanceof String) {
+      array.pushString((String) value);
+    } else if (value instanceof Boolean) {
+      array.pushBoolean((Boolean) value);
+    } else if (value instanceof Integer) {
+      array.pushInt((Integer) value);
+    } else if (value instanceof Number) {
+      array.pushDouble(((Number) value).doubleValue());
+    } else if (value instanceof ReadableMap) {
+      array.pushMap(Arguments.makeNativeMap(ConversionUtil.toMap((ReadableMap) value)));
+    } else if (value instanceof ReadableArray) {
+      array.pushArray(Arguments.makeNativeArray(((ReadableArray) value).toArrayList()));
+    } else {
+      throw new IllegalArgumentException(
+          "Unsupported screen event payload type: " + value.getClass().getName());
+    }
+  }
+}
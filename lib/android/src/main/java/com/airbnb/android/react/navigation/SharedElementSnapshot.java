@@ -0,0 +1,150 @@
+package com.airbnb.android.react.navigation;
+
+import android.graphics.Bitmap;
+import android.graphics.Rect;
+import android.graphics.drawable.BitmapDrawable;
+import android.graphics.drawable.Drawable;
+import android.os.Parcel;
+import android.os.Parcelable;
+import android.support.annotation.Nullable;
+import android.support.v4.util.Pair;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.ImageView;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Geometry (and, in process, bitmaps) of the shared elements of an outgoing screen, captured
+ * before the fragment transaction is committed and handed to the incoming fragment through its
+ * arguments.
+ *
+ * Only names and window bounds are written to a {@link Parcel}. Bitmaps are references to the
+ * ones already held by the source {@link ImageView}s (same trick as
+ * {@link AutoSharedElementCallback#onCaptureSharedElementSnapshot}), so they never get copied and
+ * are simply dropped if the arguments are ever saved.
+ */
+final class SharedElementSnapshot implements Parcelable {
+
+  private final String[] names;
+
+  /** left, top, right, bottom in window coordinates for every element. */
+  private final int[] bounds;
+
+  @Nullable
+  private final Bitmap[] bitmaps;
+
+  private SharedElementSnapshot(String[] names, int[] bounds, @Nullable Bitmap[] bitmaps) {
+    this.names = names;
+    this.bounds = bounds;
+    this.bitmaps = bitmaps;
+  }
+
+  /**
+   * Walks {@code group} and records every visible transition view it contains. Should be called
+   * while the outgoing view hierarchy is still attached and laid out.
+   */
+  static SharedElementSnapshot capture(ViewGroup group) {
+    List<Pair<View, String>> transitionViews = new ArrayList<>();
+    ViewUtils.findTransitionViews(group, transitionViews);
+
+    int size = transitionViews.size();
+    String[] names = new String[size];
+    int[] bounds = new int[size * 4];
+    Bitmap[] bitmaps = new Bitmap[size];
+    int[] location = new int[2];
+    for (int i = 0; i < size; i++) {
+      Pair<View, String> tv = transitionViews.get(i);
+      View view = tv.first;
+      view.getLocationInWindow(location);
+      names[i] = tv.second;
+      bounds[i * 4] = location[0];
+      bounds[i * 4 + 1] = location[1];
+      bounds[i * 4 + 2] = location[0] + view.getWidth();
+      bounds[i * 4 + 3] = location[1] + view.getHeight();
+      bitmaps[i] = getBitmap(view);
+    }
+    return new SharedElementSnapshot(names, bounds, bitmaps);
+  }
+
+  @Nullable
+  private static Bitmap getBitmap(View view) {
+    if (view instanceof ImageView) {
+      Drawable drawable = ((ImageView) view).getDrawable();
+      if (drawable instanceof BitmapDrawable) {
+        return ((BitmapDrawable) drawable).getBitmap();
+      }
+    }
+    return null;
+  }
+
+  int size() {
+    return names.length;
+  }
+
+  String getName(int index) {
+    return names[index];
+  }
+
+  int indexOf(String name) {
+    for (int i = 0; i < names.length; i++) {
+      if (names[i].equals(name)) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  void getBounds(int index, Rect outRect) {
+    outRect.set(
+        bounds[index * 4], bounds[index * 4 + 1], bounds[index * 4 + 2], bounds[index * 4 + 3]);
+  }
+
+  @Nullable
+  Bitmap getBitmap(int index) {
+    return bitmaps == null ? null : bitmaps[index];
+  }
+
+  /**
+   * Returns {@code true} when every captured element has a counterpart with the same transition
+   * name inside {@code root}.
+   */
+  boolean isMatchedBy(View root) {
+    for (String name : names) {
+      if (ViewUtils.findTransitionView(root, name) == null) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  @Override
+  public int describeContents() {
+    return 0;
+  }
+
+  @Override
+  public void writeToParcel(Parcel dest, int flags) {
+    dest.writeStringArray(names);
+    dest.writeIntArray(bounds);
+  }
+
+  public static final Creator<SharedElementSnapshot> CREATOR =
+      new Creator<SharedElementSnapshot>() {
+        @Override
+        public SharedElementSnapshot createFromParcel(Parcel in) {
+          return new SharedElementSnapshot(in.createStringArray(), in.createIntArray(), null);
+        }
+
+        @Override
+        public SharedElementSnapshot[] newArray(int size) {
+          return new SharedElementSnapshot[size];
+        }
+      };
+
+  @Override
+  public String toString() {
+    return "SharedElementSnapshot{size=" + names.length + '}';
+  }
+}
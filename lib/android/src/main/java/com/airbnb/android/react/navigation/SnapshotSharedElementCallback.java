@@ -0,0 +1,77 @@
+package com.airbnb.android.react.navigation;
+
+import android.graphics.Bitmap;
+import android.graphics.Rect;
+import android.graphics.drawable.BitmapDrawable;
+import android.graphics.drawable.Drawable;
+import android.support.v4.app.SharedElementCallback;
+import android.view.View;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Enter {@link SharedElementCallback} for a screen that received a {@link SharedElementSnapshot}
+ * from the outgoing screen.
+ *
+ * If the transition starts before React Native finished laying out a target view, the view is
+ * positioned at the captured bounds and the captured bitmap (if any) is drawn in its overlay, so
+ * the transition has valid geometry to animate from. The overlays are removed once the shared
+ * element transition reaches its end state.
+ */
+class SnapshotSharedElementCallback extends SharedElementCallback {
+
+  private final SharedElementSnapshot snapshot;
+
+  private final List<View> overlayViews = new ArrayList<>();
+
+  private final List<Drawable> overlayDrawables = new ArrayList<>();
+
+  private final Rect rect = new Rect();
+
+  private final int[] location = new int[2];
+
+  SnapshotSharedElementCallback(SharedElementSnapshot snapshot) {
+    this.snapshot = snapshot;
+  }
+
+  @Override
+  public void onSharedElementStart(List<String> sharedElementNames, List<View> sharedElements,
+      List<View> sharedElementSnapshots) {
+    int size = Math.min(sharedElementNames.size(), sharedElements.size());
+    for (int i = 0; i < size; i++) {
+      View view = sharedElements.get(i);
+      if (view.getWidth() > 0 && view.getHeight() > 0) {
+        // Already laid out by React Native, nothing to fill in.
+        continue;
+      }
+      int index = snapshot.indexOf(sharedElementNames.get(i));
+      if (index < 0 || !(view.getParent() instanceof View)) {
+        continue;
+      }
+      snapshot.getBounds(index, rect);
+      ((View) view.getParent()).getLocationInWindow(location);
+      rect.offset(-location[0], -location[1]);
+      view.layout(rect.left, rect.top, rect.right, rect.bottom);
+
+      Bitmap bitmap = snapshot.getBitmap(index);
+      if (bitmap != null) {
+        Drawable drawable = new BitmapDrawable(view.getResources(), bitmap);
+        drawable.setBounds(0, 0, rect.width(), rect.height());
+        view.getOverlay().add(drawable);
+        overlayViews.add(view);
+        overlayDrawables.add(drawable);
+      }
+    }
+  }
+
+  @Override
+  public void onSharedElementEnd(List<String> sharedElementNames, List<View> sharedElements,
+      List<View> sharedElementSnapshots) {
+    for (int i = 0; i < overlayViews.size(); i++) {
+      overlayViews.get(i).getOverlay().remove(overlayDrawables.get(i));
+    }
+    overlayViews.clear();
+    overlayDrawables.clear();
+  }
+}
@@ -1,6 +1,5 @@
 package com.airbnb.android.react.navigation;
 
-import android.util.Log;
 import com.facebook.react.bridge.ReadableMap;
 import com.facebook.react.uimanager.ThemedReactContext;
 import com.facebook.react.uimanager.ViewGroupManager;
@@ -21,7 +20,7 @@ public class TabBarViewManager extends ViewGroupManager<TabBarView> {
 
   @ReactProp(name="config")
   public void setConfig(TabBarView view, ReadableMap config) {
-    Log.d(TAG, "setConfig");
+    NavigationTrace.event(TAG, "setConfig");
     view.setConfig(config);
   }
 }
@@ -5,7 +5,9 @@ import android.support.annotation.Nullable;
 import android.support.v4.app.Fragment;
 import android.support.v4.util.LongSparseArray;
 import android.support.v7.app.AppCompatActivity;
-import android.util.Log;
+
+import java.util.ArrayList;
+import java.util.List;
 
 public class TabCoordinator {
   private static final String TAG = TabCoordinator.class.getSimpleName();
@@ -35,10 +37,17 @@ public class TabCoordinator {
     ScreenCoordinator coordinator = screenCoordinators.get(id);
     if (coordinator == null) {
       coordinator = new ScreenCoordinator(activity, container, null);
+      coordinator.setTabId(id);
       screenCoordinators.put(id, coordinator);
     }
+    ReactNavigationCoordinator.sharedInstance.getNavigationStateChannel().onTabSelected(id);
     coordinator.presentScreen(startingFragment, ScreenCoordinator.PresentAnimation.Fade, null);
-    Log.d(TAG, toString());
+    NavigationTrace.state(TAG, this);
+  }
+
+  @Nullable
+  Integer getCurrentTabId() {
+    return currentTabId;
   }
 
   @Nullable
@@ -48,6 +57,15 @@ public class TabCoordinator {
     return screenCoordinators.get(currentTabId);
   }
 
+  List<ScreenCoordinator> getScreenCoordinators() {
+    int size = screenCoordinators.size();
+    List<ScreenCoordinator> coordinators = new ArrayList<>(size);
+    for (int i = 0; i < size; i++) {
+      coordinators.add(screenCoordinators.valueAt(i));
+    }
+    return coordinators;
+  }
+
   public boolean onBackPressed() {
     if (currentTabId == null) {
       return false;
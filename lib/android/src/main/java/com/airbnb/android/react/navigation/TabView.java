@@ -1,7 +1,7 @@
 package com.airbnb.android.react.navigation;
 
 import android.content.Context;
-import android.os.Bundle;
+import android.support.annotation.Nullable;
 import android.support.v4.app.Fragment;
 import android.util.AttributeSet;
 import android.view.View;
@@ -18,8 +18,9 @@ public class TabView extends View {
   private String title;
   private ReadableMap prevConfig;
   private ReadableMap renderedConfig;
-  private Bundle props;
-  private Fragment fragment;
+  /** Converted to a {@link android.os.Bundle} only once the tab's fragment is needed. */
+  private ReadableMap props;
+  private ReactNativeFragment fragment;
 
   public TabView(Context context, AttributeSet attrs) {
     super(context, attrs);
@@ -31,7 +32,10 @@ public class TabView extends View {
   }
 
   public void setProps(ReadableMap props) {
-    this.props = ConversionUtil.toBundle(props);
+    this.props = props;
+    if (fragment != null) {
+      fragment.setAppProperties(ConversionUtil.toBundle(props));
+    }
   }
 
   public void setConfig(ReadableMap config) {
@@ -53,11 +57,20 @@ public class TabView extends View {
     }
     return fragment;
   }
+
+  /**
+   * Returns the tab's fragment if it was already created, e.g. by prefetching.
+   */
+  @Nullable
+  Fragment peekFragment() {
+    return fragment;
+  }
+
   public String getRoute() {
     return route;
   }
 
   private ReactNativeFragment instantiateFragment() {
-    return ReactNativeFragment.newInstance(route, props);
+    return ReactNativeFragment.newInstance(route, ConversionUtil.toBundle(props));
   }
 }
@@ -1,6 +1,5 @@
 package com.airbnb.android.react.navigation;
 
-import android.util.Log;
 import com.facebook.react.bridge.ReadableMap;
 import com.facebook.react.uimanager.SimpleViewManager;
 import com.facebook.react.uimanager.ThemedReactContext;
@@ -16,25 +15,25 @@ public class TabViewManager extends SimpleViewManager<TabView> {
 
   @Override
   protected TabView createViewInstance(ThemedReactContext reactContext) {
-    Log.d(TAG, "createViewInstance");
+    NavigationTrace.event(TAG, "createViewInstance");
     return new TabView(reactContext, null);
   }
 
   @ReactProp(name="route")
   public void setRoute(TabView view, String route) {
-    Log.d(TAG, "setRoute");
+    NavigationTrace.event(TAG, "setRoute");
     view.setRoute(route);
   }
 
   @ReactProp(name="props")
   public void setProps(TabView view, ReadableMap props) {
-    Log.d(TAG, "setProps");
+    NavigationTrace.event(TAG, "setProps");
     view.setProps(props);
   }
 
   @ReactProp(name="config")
   public void setConfig(TabView view, ReadableMap config) {
-    Log.d(TAG, "setConfig");
+    NavigationTrace.event(TAG, "setConfig");
     view.setConfig(config);
   }
 }
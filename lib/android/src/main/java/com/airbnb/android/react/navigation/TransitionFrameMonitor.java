@@ -0,0 +1,97 @@
+package com.airbnb.android.react.navigation;
+
+import android.view.Choreographer;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Counts the frames rendered while a screen transition is running, and how many of them went over
+ * the frame budget. Results are logged and reported to the coordinator when the transition ends.
+ */
+class TransitionFrameMonitor implements Choreographer.FrameCallback {
+
+  private static final String TAG = TransitionFrameMonitor.class.getSimpleName();
+
+  static final long FRAME_BUDGET_NANOS = TimeUnit.MILLISECONDS.toNanos(16);
+
+  /**
+   * Frame callbacks are aligned to vsync, so an interval longer than one and a half budgets means
+   * at least one frame took longer than the budget and a vsync was missed.
+   */
+  private static final long JANK_THRESHOLD_NANOS = FRAME_BUDGET_NANOS * 3 / 2;
+
+  private final ReactNavigationCoordinator coordinator;
+
+  private String instanceId;
+
+  private boolean enter;
+
+  private boolean isRunning;
+
+  private boolean isHardwareLayer;
+
+  private long startFrameTimeNanos;
+
+  private long lastFrameTimeNanos;
+
+  private int frameCount;
+
+  private int jankCount;
+
+  TransitionFrameMonitor(ReactNavigationCoordinator coordinator) {
+    this.coordinator = coordinator;
+  }
+
+  void start(String instanceId, boolean enter, boolean isHardwareLayer) {
+    if (isRunning) {
+      stop();
+    }
+    this.instanceId = instanceId;
+    this.enter = enter;
+    this.isHardwareLayer = isHardwareLayer;
+    isRunning = true;
+    startFrameTimeNanos = 0;
+    lastFrameTimeNanos = 0;
+    frameCount = 0;
+    jankCount = 0;
+    Choreographer.getInstance().postFrameCallback(this);
+  }
+
+  void stop() {
+    if (!isRunning) {
+      return;
+    }
+    isRunning = false;
+    Choreographer.getInstance().removeFrameCallback(this);
+    long durationMs = getDurationMs();
+    NavigationTrace.event(TAG, "transitionFinished", this);
+    coordinator.onTransitionFinished(instanceId, enter, frameCount, jankCount, durationMs);
+  }
+
+  private long getDurationMs() {
+    return TimeUnit.NANOSECONDS.toMillis(lastFrameTimeNanos - startFrameTimeNanos);
+  }
+
+  @Override
+  public String toString() {
+    return instanceId + (enter ? " enter: " : " exit: ") + frameCount + " frames, "
+        + jankCount + " over budget, " + getDurationMs() + "ms, hardwareLayer=" + isHardwareLayer;
+  }
+
+  @Override
+  public void doFrame(long frameTimeNanos) {
+    if (!isRunning) {
+      return;
+    }
+    if (lastFrameTimeNanos == 0) {
+      startFrameTimeNanos = frameTimeNanos;
+    } else {
+      frameCount++;
+      if (frameTimeNanos - lastFrameTimeNanos > JANK_THRESHOLD_NANOS) {
+        jankCount++;
+      }
+    }
+    lastFrameTimeNanos = frameTimeNanos;
+    Choreographer.getInstance().postFrameCallback(this);
+  }
+}
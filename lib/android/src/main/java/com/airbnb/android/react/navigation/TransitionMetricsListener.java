@@ -0,0 +1,25 @@
+package com.airbnb.android.react.navigation;
+
+/**
+ * Receives frame metrics for every screen transition. Register it through
+ * {@link ReactNavigationCoordinator#injectTransitionMetricsListener(TransitionMetricsListener)}.
+ */
+public interface TransitionMetricsListener {
+  /**
+   * Called on the main thread once the enter or exit animation of a screen has ended.
+   *
+   * @param instanceId
+   *     The instance id of the animated screen
+   * @param enter
+   *     Whether this was the enter animation of the screen
+   * @param frameCount
+   *     The number of frames drawn during the animation
+   * @param jankCount
+   *     The number of those frames that came more than one and a half frame budgets (24ms)
+   *     after the previous one, i.e. missed at least one vsync
+   * @param durationMs
+   *     The measured duration of the animation
+   */
+  void onTransitionFinished(
+      String instanceId, boolean enter, int frameCount, int jankCount, long durationMs);
+}
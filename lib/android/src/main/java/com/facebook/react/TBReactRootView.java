@@ -36,6 +36,14 @@ public class TBReactRootView extends ReactRootView {
   private @Nullable
   ReactInstanceManager reactInstanceManager;
 
+  /**
+   * Initial properties as they came over the bridge. When set, they are handed to
+   * {@code runApplication} as is, and only converted to a {@link Bundle} if someone asks for
+   * {@link #getAppProperties()}.
+   */
+  private @Nullable
+  ReadableNativeMap mAppPropertiesMap;
+
   public TBReactRootView(Context context) {
     super(context);
   }
@@ -58,17 +66,33 @@ public class TBReactRootView extends ReactRootView {
   public void startReactApplication(ReactInstanceManager reactInstanceManager, String moduleName, @Nullable Bundle initialProperties) {
     super.startReactApplication(reactInstanceManager, moduleName, initialProperties);
     mAppProperties = initialProperties;
+    mAppPropertiesMap = null;
     this.reactInstanceManager = reactInstanceManager;
   }
 
+  /**
+   * Same as {@link #startReactApplication(ReactInstanceManager, String, Bundle)}, but skips the
+   * {@link Bundle} round trip for properties that are already in native form.
+   */
+  public void startReactApplicationWithProps(ReactInstanceManager reactInstanceManager, String moduleName, ReadableNativeMap initialProperties) {
+    mAppProperties = null;
+    mAppPropertiesMap = initialProperties;
+    this.reactInstanceManager = reactInstanceManager;
+    super.startReactApplication(reactInstanceManager, moduleName, null);
+  }
+
   public @Nullable
   Bundle getAppProperties() {
+    if (mAppProperties == null && mAppPropertiesMap != null) {
+      mAppProperties = Arguments.toBundle(mAppPropertiesMap);
+    }
     return mAppProperties;
   }
 
   public void setAppProperties(@Nullable Bundle appProperties) {
     UiThreadUtil.assertOnUiThread();
     mAppProperties = appProperties;
+    mAppPropertiesMap = null;
 
     if (reactInstanceManager == null || reactInstanceManager.getCurrentReactContext() == null) {
       return;
@@ -83,8 +107,15 @@ public class TBReactRootView extends ReactRootView {
     ReactContext reactContext = reactInstanceManager.getCurrentReactContext();
     CatalystInstance catalystInstance = reactContext.getCatalystInstance();
     int rootTag = this.getRootViewTag();
-    Bundle appProperties = this.getAppProperties();
-    WritableMap initialProps = Arguments.fromBundle(appProperties);
+    WritableMap initialProps;
+    if (mAppPropertiesMap != null) {
+      // putMap consumes the map, so hand over a native copy and keep ours for the next run.
+      WritableNativeMap copy = new WritableNativeMap();
+      copy.merge(mAppPropertiesMap);
+      initialProps = copy;
+    } else {
+      initialProps = Arguments.fromBundle(this.getAppProperties());
+    }
     String jsAppModuleName = this.getJSModuleName();
 
     WritableNativeMap appParams = new WritableNativeMap();
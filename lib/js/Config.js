@@ -1,11 +1,10 @@
 import React from 'react';
 import PropTypes from 'prop-types';
-import {
-  DeviceEventEmitter,
-  Platform,
-} from 'react-native';
-import navigatorEmitter from './navigatorEmitter';
 import AirbnbNavigator from './NavigatorModule';
+import {
+  addScreenListener,
+  removeScreenListener,
+} from './screenEvents';
 import {
   processConfigWatchingForMutations,
 } from './utils';
@@ -13,8 +12,7 @@ import {
 class Config extends React.Component {
   constructor(props, context) {
     super(props, context);
-    this.deeSubscriptions = {};
-    this.neSubscriptions = {};
+    this.subscriptions = {};
     this.handleProps(
       props,
       {},
@@ -33,41 +31,25 @@ class Config extends React.Component {
   }
 
   componentWillUnmount() {
-    Object.keys(this.deeSubscriptions).forEach(key => {
-      DeviceEventEmitter.removeSubscription(this.deeSubscriptions[key]);
-    });
-
-    Object.keys(this.neSubscriptions).forEach(key => {
-      navigatorEmitter.unsubscribe(this.neSubscriptions[key]);
+    Object.keys(this.subscriptions).forEach(key => {
+      removeScreenListener(this.subscriptions[key]);
     });
   }
 
   setCallbackIfNeeded(event, next, prev, id) {
     if (next[event] !== prev[event]) {
+      // on android, events emitted before the screen rendered (like the first `onAppear`) are
+      // held natively until `signalFirstRenderComplete`, so subscribing here is enough.
       this.setCallback(event, id, next[event]);
-      if (event === 'onAppear' && Platform.OS === 'android') {
-        // on android, the first `onAppear` event gets emitted before the JS has time to subscribe
-        // to it. As a result, we fire it on `sceneDidMount`, since it's effectively the same
-        // thing.
-        this.setNavigatorEmitterCallback('sceneDidMount', id, next[event]);
-      }
     }
   }
 
-  setNavigatorEmitterCallback(event, id, cb) {
-    const key = `${event}.${id}`;
-    if (this.neSubscriptions[key]) {
-      navigatorEmitter.unsubscribe(this.neSubscriptions[key]);
-    }
-    this.neSubscriptions[key] = navigatorEmitter.on(key, cb);
-  }
-
   setCallback(event, id, cb) {
-    const key = `NativeNavigationScreen.${event}.${id}`;
-    if (this.deeSubscriptions[key]) {
-      DeviceEventEmitter.removeSubscription(this.deeSubscriptions[key]);
+    const key = `${event}.${id}`;
+    if (this.subscriptions[key]) {
+      removeScreenListener(this.subscriptions[key]);
     }
-    this.deeSubscriptions[key] = DeviceEventEmitter.addListener(key, cb);
+    this.subscriptions[key] = addScreenListener(event, id, cb);
   }
 
   handleProps(next, prev, id, screenProps) {
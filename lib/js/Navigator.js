@@ -2,14 +2,28 @@ import React from 'react';
 import PropTypes from 'prop-types';
 import {
   AppRegistry,
+  DeviceEventEmitter,
 } from 'react-native';
 import AirbnbNavigator from './NavigatorModule';
-import navigatorEmitter from './navigatorEmitter';
 import { processConfig } from './utils';
 
 const RESULT_CANCELED = 0;
 const RESULT_OK = -1;
 
+// Scene thunks of registered screens that haven't been required yet, by screen name.
+const pendingSceneThunks = {};
+
+// Android asks for some screens to be required ahead of time once the bridge is idle.
+DeviceEventEmitter.addListener('NativeNavigationPreloadScreens', (screenNames) => {
+  screenNames.forEach((screenName) => {
+    const sceneThunk = pendingSceneThunks[screenName];
+    if (sceneThunk) {
+      delete pendingSceneThunks[screenName];
+      sceneThunk();
+    }
+  });
+});
+
 function wrapResult(promise) {
   // React Native doesn't allow you to pass complex data through
   // promise rejections, so we pass it back through resolve, and
@@ -51,7 +65,6 @@ function wrapScreen(sceneName, sceneThunk) {
       };
     }
     componentDidMount() {
-      navigatorEmitter.emit(`sceneDidMount.${this.props.nativeNavigationInstanceId}`);
       setTimeout(
         () => AirbnbNavigator.signalFirstRenderComplete(this.props.nativeNavigationInstanceId),
         0
@@ -83,7 +96,7 @@ const NavigatorModule = {
   RESULT_CANCELED,
   RESULT_OK,
   registerScreen(screenName, sceneThunk, options = {}) {
-    const waitForRender = !!options.waitForRender;
+    const waitForRender = options.waitForRender !== false;
     const mode = options.mode || 'screen';
     const initialConfig = options.initialConfig || null;
 
@@ -95,12 +108,14 @@ const NavigatorModule = {
     );
 
     const WrappedScreen = wrapScreen(screenName, sceneThunk);
+    pendingSceneThunks[screenName] = sceneThunk;
     AppRegistry.registerComponent(screenName, () => {
       // execute sceneThunk here immediately. This is important so we can invoke the
       // registered "thunk" (which is the function this comment is contained in), and
       // ensure that the underlying sceneThunk is also invoked, potentially requiring
       // some JS files that haven't been required yet. This allows us to "warm" the
       // module cache before a screen is rendered.
+      delete pendingSceneThunks[screenName];
       sceneThunk();
       return WrappedScreen;
     });
@@ -134,6 +149,22 @@ const NavigatorModule = {
     AirbnbNavigator.dismiss(payload, animated);
   },
 
+  // Android only for now. Each screen is either a screen name or `{ screenName, props }`.
+  resetTo(screens) {
+    return AirbnbNavigator.resetTo(
+      screens.map(screen => (typeof screen === 'string' ? { screenName: screen } : screen))
+    );
+  },
+
+  // Android only for now.
+  getNavigationState() {
+    return AirbnbNavigator.getNavigationState();
+  },
+
+  onNavigationStateChange(listener) {
+    return DeviceEventEmitter.addListener('NativeNavigationStateChanged', listener);
+  },
+
   pushEvent(eventName, props = null) {
     return wrapResult(AirbnbNavigator.pushEvent(eventName, props))
   },
@@ -2,6 +2,7 @@ import SafeModule from 'react-native-safe-module';
 
 const noop = () => {};
 const unresolvedPromise = () => new Promise(() => {});
+const unsupportedPromise = () => Promise.reject(new Error('Not supported on this platform'));
 
 const NavigatorModule = SafeModule.module({
   moduleName: 'NativeNavigationModule',
@@ -11,9 +12,11 @@ const NavigatorModule = SafeModule.module({
     present: unresolvedPromise,
     presentNative: unresolvedPromise,
     pushEvent: unresolvedPromise,
+    getNavigationState: unsupportedPromise,
     replace: unresolvedPromise,
     pop: noop,
     dismiss: noop,
+    resetTo: unsupportedPromise,
     signalFirstRenderComplete: noop,
     setScreenProperties: noop,
     registerScreen: noop,
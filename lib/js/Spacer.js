@@ -1,10 +1,13 @@
 import React from 'react';
 import PropTypes from 'prop-types';
 import {
-  DeviceEventEmitter,
   View,
   LayoutAnimation,
 } from 'react-native';
+import {
+  addScreenListener,
+  removeScreenListener,
+} from './screenEvents';
 
 class Spacer extends React.Component {
   constructor(props, context) {
@@ -19,12 +22,11 @@ class Spacer extends React.Component {
 
   componentDidMount() {
     const id = this.context.nativeNavigationInstanceId;
-    const key = `NativeNavigationScreen.onBarHeightChanged.${id}`;
-    this.subscription = DeviceEventEmitter.addListener(key, this.onHeightChanged);
+    this.subscription = addScreenListener('onBarHeightChanged', id, this.onHeightChanged);
   }
 
   componentWillUnmount() {
-    DeviceEventEmitter.removeSubscription(this.subscription);
+    removeScreenListener(this.subscription);
   }
 
   onHeightChanged(height) {
@@ -1,3 +0,0 @@
-import EventEmitter from './EventEmitter';
-
-export default new EventEmitter();
@@ -0,0 +1,37 @@
+import {
+  DeviceEventEmitter,
+  Platform,
+} from 'react-native';
+import EventEmitter from './EventEmitter';
+
+// On android, every screen event arrives on a single channel as a flat array of
+// `[instanceId, eventName, payload, ...]` triples. We fan those out locally so that the
+// DeviceEventEmitter only ever has one listener for all screens.
+const CHANNEL = 'NativeNavigationScreenEvent';
+
+const emitter = new EventEmitter();
+let channelSubscription = null;
+
+function dispatch(batch) {
+  for (let i = 0; i < batch.length; i += 3) {
+    emitter.emit(`${batch[i + 1]}.${batch[i]}`, batch[i + 2]);
+  }
+}
+
+export function addScreenListener(event, id, handler) {
+  if (Platform.OS !== 'android') {
+    return DeviceEventEmitter.addListener(`NativeNavigationScreen.${event}.${id}`, handler);
+  }
+  if (channelSubscription === null) {
+    channelSubscription = DeviceEventEmitter.addListener(CHANNEL, dispatch);
+  }
+  return emitter.on(`${event}.${id}`, handler);
+}
+
+export function removeScreenListener(subscription) {
+  if (Platform.OS !== 'android') {
+    DeviceEventEmitter.removeSubscription(subscription);
+    return;
+  }
+  emitter.unsubscribe(subscription);
+}